@@ -24,27 +24,19 @@
  */
 package com.brastasauce.purchaseprogress;
 
-import com.google.common.collect.ImmutableList;
+import com.brastasauce.purchaseprogress.price.PriceProvider;
 import net.runelite.api.Client;
-import net.runelite.api.InventoryID;
+import net.runelite.api.GrandExchangeOffer;
 import net.runelite.api.Item;
 import net.runelite.api.ItemContainer;
 import net.runelite.api.ItemID;
 import net.runelite.api.Varbits;
-import net.runelite.client.game.ItemManager;
 
 import javax.inject.Inject;
-import java.util.Arrays;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 public class BankCalculation
 {
-    private int hash;
-    private Long bankValue;
-
-    private static final List<Integer> TAB_VARBITS = ImmutableList.of(
+    private static final int[] TAB_VARBITS = {
             Varbits.BANK_TAB_ONE_COUNT,
             Varbits.BANK_TAB_TWO_COUNT,
             Varbits.BANK_TAB_THREE_COUNT,
@@ -54,10 +46,16 @@ public class BankCalculation
             Varbits.BANK_TAB_SEVEN_COUNT,
             Varbits.BANK_TAB_EIGHT_COUNT,
             Varbits.BANK_TAB_NINE_COUNT
-    );
+    };
+    private static final int[] NO_TABS = new int[0];
+
+    // Last seen contents of every container, each valued on its own
+    private final ContainerValuation[] containers = new ContainerValuation[ContainerType.values().length];
+
+    private volatile boolean pricesChanged;
 
     @Inject
-    private ItemManager itemManager;
+    private PriceProvider priceProvider;
 
     @Inject
     private Client client;
@@ -65,104 +63,226 @@ public class BankCalculation
     @Inject
     private PurchaseProgressConfig config;
 
-    long calculateValue()
+    @Inject
+    private ItemCanonicalizer canonicalizer;
+
+    BankCalculation()
     {
-        long value = 0;
+        for (int i = 0; i < containers.length; i++)
+        {
+            containers[i] = new ContainerValuation();
+        }
+    }
 
-        final ItemContainer inventory = client.getItemContainer(InventoryID.INVENTORY);
-        final ItemContainer bank = client.getItemContainer(InventoryID.BANK);
+    boolean isIncluded(ContainerType type)
+    {
+        switch (type)
+        {
+            case INVENTORY:
+            case BANK:
+                return true; // Coins and tokens always count
+            case EQUIPMENT:
+                return config.includeEquipment();
+            case LOOTING_BAG:
+                return config.includeLootingBag();
+            case GRAND_EXCHANGE:
+                return config.includeGrandExchange();
+            default:
+                return false;
+        }
+    }
 
-        // Add inventory GP/tokens
-        if (inventory != null)
+    // Client thread: copy what valuation needs, nothing is priced here
+    ContainerSnapshot snapshot(ContainerType type)
+    {
+        if (type == ContainerType.GRAND_EXCHANGE)
         {
-            value += inventory.count(ItemID.COINS_995);
-            value += inventory.count(ItemID.PLATINUM_TOKEN) * 1000L;
+            return snapshotGrandExchange();
         }
 
-        if (bank == null)
+        final ItemContainer container = client.getItemContainer(type.getInventoryId());
+        if (container == null)
         {
-            return value;
+            return null;
         }
 
-        // Add bank GP/tokens
-        value += bank.count(ItemID.COINS_995);
-        value += bank.count(ItemID.PLATINUM_TOKEN) * 1000L;
+        final Item[] items = container.getItems();
+        final int[] itemIds = new int[items.length];
+        final int[] quantities = new int[items.length];
+
+        // Without inventory items only gold is kept, so other inventory churn never changes the snapshot
+        final boolean goldOnly = type == ContainerType.INVENTORY && !config.includeInventory();
 
-        // Add loot tab value if selected
-        if (!config.includeBankTab())
+        for (int i = 0; i < items.length; i++)
+        {
+            final int id = items[i].getId();
+            if (goldOnly && id != ItemID.COINS_995 && id != ItemID.PLATINUM_TOKEN)
+            {
+                setSlot(itemIds, quantities, i, -1, 0);
+            }
+            else
+            {
+                setSlot(itemIds, quantities, i, id, items[i].getQuantity());
+            }
+        }
+
+        int[] tabSizes = NO_TABS;
+        if (type == ContainerType.BANK)
+        {
+            tabSizes = new int[TAB_VARBITS.length];
+            for (int i = 0; i < TAB_VARBITS.length; i++)
+            {
+                tabSizes[i] = client.getVarbitValue(TAB_VARBITS[i]);
+            }
+        }
+
+        return new ContainerSnapshot(type, itemIds, quantities, tabSizes);
+    }
+
+    private ContainerSnapshot snapshotGrandExchange()
+    {
+        final GrandExchangeOffer[] offers = client.getGrandExchangeOffers();
+        if (offers == null)
         {
-            return value;
+            return null;
         }
 
-        final Item[] items = bank.getItems();
-        int lootTab = config.bankTab();
+        // Each offer takes two slots, the item side and the gold side
+        final int[] itemIds = new int[offers.length * 2];
+        final int[] quantities = new int[offers.length * 2];
 
-        if (lootTab != 0)
+        for (int i = 0; i < offers.length; i++)
         {
-            int startIndex = 0;
+            final GrandExchangeOffer offer = offers[i];
+            if (offer == null || offer.getState() == null)
+            {
+                setSlot(itemIds, quantities, i * 2, -1, 0);
+                setSlot(itemIds, quantities, i * 2 + 1, -1, 0);
+                continue;
+            }
 
-            for (int i = lootTab - 1; i > 0; i--)
+            switch (offer.getState())
             {
-                startIndex += client.getVarbitValue(TAB_VARBITS.get(i - 1));
+                case BUYING:
+                case BOUGHT:
+                case CANCELLED_BUY:
+                    // Items bought so far plus the gold not yet spent
+                    setSlot(itemIds, quantities, i * 2, offer.getItemId(), offer.getQuantitySold());
+                    setSlot(itemIds, quantities, i * 2 + 1, ItemID.COINS_995,
+                            clampQuantity((long) offer.getTotalQuantity() * offer.getPrice() - offer.getSpent()));
+                    break;
+                case SELLING:
+                case SOLD:
+                case CANCELLED_SELL:
+                    // Items not yet sold plus the gold received
+                    setSlot(itemIds, quantities, i * 2, offer.getItemId(), offer.getTotalQuantity() - offer.getQuantitySold());
+                    setSlot(itemIds, quantities, i * 2 + 1, ItemID.COINS_995, offer.getSpent());
+                    break;
+                default:
+                    setSlot(itemIds, quantities, i * 2, -1, 0);
+                    setSlot(itemIds, quantities, i * 2 + 1, -1, 0);
+                    break;
             }
+        }
 
-            int itemCount = client.getVarbitValue(TAB_VARBITS.get(lootTab - 1));
-            value += calculateItemValues(Arrays.copyOfRange(items, startIndex, startIndex + itemCount));
+        return new ContainerSnapshot(ContainerType.GRAND_EXCHANGE, itemIds, quantities, NO_TABS);
+    }
+
+    private void setSlot(int[] itemIds, int[] quantities, int slot, int itemId, int quantity)
+    {
+        // Ids are canonicalized here, where item compositions can be read
+        final int id = quantity > 0 ? canonicalizer.canonicalize(itemId) : ItemCanonicalizer.SKIP;
+        if (id != ItemCanonicalizer.SKIP)
+        {
+            itemIds[slot] = id;
+            quantities[slot] = quantity;
         }
         else
         {
-            value += calculateItemValues(items);
+            itemIds[slot] = -1;
+            quantities[slot] = 0;
         }
+    }
 
-        return value;
+    private static int clampQuantity(long quantity)
+    {
+        return (int) Math.max(0, Math.min(Integer.MAX_VALUE, quantity));
     }
 
-    private long calculateItemValues(Item[] items)
+    // Valuation worker: all container state below is confined to that thread
+    void update(ContainerSnapshot snapshot)
     {
-        // Return last calculation if bank tab hasn't changed
-        final int newHash = hashItems(items);
-        if (bankValue != null && hash == newHash)
+        containers[snapshot.getType().ordinal()].update(snapshot, this::getUnitPrice);
+    }
+
+    long calculateValue()
+    {
+        // Prices moved since the last pass, so every container has to be revalued
+        if (pricesChanged)
         {
-            return bankValue;
+            pricesChanged = false;
+            for (ContainerValuation container : containers)
+            {
+                container.reprice(this::getUnitPrice);
+            }
         }
 
-        hash = newHash;
         long value = 0;
 
-        for (final Item item : items)
+        for (ContainerType type : ContainerType.values())
         {
-            final int qty = item.getQuantity();
-            final int id = item.getId();
-
-            if (id <= 0 || qty == 0)
+            if (!isIncluded(type))
             {
                 continue;
             }
 
-            switch (id)
+            final ContainerValuation container = containers[type.ordinal()];
+            value += container.getGold();
+
+            switch (type)
             {
-                case ItemID.COINS_995:
-                    break; // Inventory and Bank coins already calculated
-                case ItemID.PLATINUM_TOKEN:
-                    break; // Inventory and Bank tokens already calculated
+                case INVENTORY:
+                    if (config.includeInventory())
+                    {
+                        value += container.getItemsValue();
+                    }
+                    break;
+                case BANK:
+                    // Add loot tab value if selected
+                    if (config.includeBankTab())
+                    {
+                        value += container.getTabValue(config.bankTab());
+                    }
+                    break;
                 default:
-                    value += (long) itemManager.getItemPrice(id) * qty;
+                    value += container.getItemsValue();
                     break;
             }
         }
 
-        bankValue = value;
         return value;
     }
 
-    private int hashItems(final Item[] items)
+    void invalidatePrices()
+    {
+        pricesChanged = true;
+    }
+
+    private int getUnitPrice(int id)
     {
-        final Map<Integer, Integer> mapCheck = new HashMap<>(items.length);
-        for (Item item : items)
+        switch (id)
+        {
+            case ItemID.COINS_995:
+                return 0; // Coins are counted separately from the item value
+            case ItemID.PLATINUM_TOKEN:
+                return 0; // Tokens are counted separately from the item value
+        }
+
+        if (id <= 0)
         {
-            mapCheck.put(item.getId(), item.getQuantity());
+            return 0;
         }
 
-        return mapCheck.hashCode();
+        return priceProvider.getPrice(id);
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Collapses bursts of container events into one valuation per container per game tick and one value write per quiet period
+@Slf4j
+public class BankEventCoalescer
+{
+    // Ticks without a new value before it is written to config (~3 seconds)
+    private static final int SAVE_QUIET_TICKS = 5;
+
+    // Bit per ContainerType ordinal waiting to be snapshotted
+    private final AtomicInteger pendingContainers = new AtomicInteger();
+    private final AtomicBoolean saveRequested = new AtomicBoolean();
+    private int saveCountdown;
+
+    private final AtomicInteger eventsReceived = new AtomicInteger();
+    private final AtomicInteger valuationsRun = new AtomicInteger();
+    private final AtomicInteger savesRequested = new AtomicInteger();
+    private final AtomicInteger savesWritten = new AtomicInteger();
+
+    void containerChanged(ContainerType type)
+    {
+        eventsReceived.incrementAndGet();
+        pendingContainers.getAndUpdate(mask -> mask | 1 << type.ordinal());
+    }
+
+    void valueChanged()
+    {
+        savesRequested.incrementAndGet();
+        saveRequested.set(true);
+    }
+
+    // Client thread, once per game tick: mask of the containers to snapshot this tick
+    int pollValuation()
+    {
+        final int mask = pendingContainers.getAndSet(0);
+        valuationsRun.addAndGet(Integer.bitCount(mask));
+        return mask;
+    }
+
+    // Client thread, once per game tick: true once the value has been quiet long enough to write
+    boolean pollSave()
+    {
+        if (saveRequested.getAndSet(false))
+        {
+            saveCountdown = SAVE_QUIET_TICKS;
+            return false;
+        }
+
+        if (saveCountdown > 0 && --saveCountdown == 0)
+        {
+            savesWritten.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    // True if a value is still waiting to be written, used to flush on shutdown
+    boolean flushSave()
+    {
+        if (saveRequested.getAndSet(false) || saveCountdown > 0)
+        {
+            saveCountdown = 0;
+            savesWritten.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    int getMergedEvents()
+    {
+        return eventsReceived.get() - valuationsRun.get();
+    }
+
+    int getMergedSaves()
+    {
+        return savesRequested.get() - savesWritten.get();
+    }
+
+    void logStats()
+    {
+        log.debug("Container events: {} received, {} valued, {} merged. Value saves: {} requested, {} written, {} merged",
+                eventsReceived.get(), valuationsRun.get(), getMergedEvents(),
+                savesRequested.get(), savesWritten.get(), getMergedSaves());
+    }
+}
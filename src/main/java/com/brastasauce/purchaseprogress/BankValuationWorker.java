@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.LongConsumer;
+
+@Slf4j
+public class BankValuationWorker
+{
+    private static final ContainerType[] TYPES = ContainerType.values();
+
+    private final BankCalculation bankCalculation;
+    private final LongConsumer publisher;
+    private final ExecutorService executor;
+
+    // Only the newest snapshot of each container is worth valuing, older ones are replaced before they run
+    private final AtomicReferenceArray<ContainerSnapshot> pending = new AtomicReferenceArray<>(TYPES.length);
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // Last snapshot valued for each container
+    private final AtomicReferenceArray<ContainerSnapshot> last = new AtomicReferenceArray<>(TYPES.length);
+
+    BankValuationWorker(BankCalculation bankCalculation, LongConsumer publisher)
+    {
+        this.bankCalculation = bankCalculation;
+        this.publisher = publisher;
+        this.executor = Executors.newSingleThreadExecutor(r ->
+        {
+            Thread thread = new Thread(r, "purchase-progress-valuation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    void submit(ContainerSnapshot snapshot)
+    {
+        if (snapshot != null)
+        {
+            pending.set(snapshot.getType().ordinal(), snapshot);
+        }
+        schedule();
+    }
+
+    // Totals the last known containers again, used after a price refresh or a config change
+    void revalue()
+    {
+        schedule();
+    }
+
+    List<ContainerSnapshot> getLastSnapshots()
+    {
+        final List<ContainerSnapshot> snapshots = new ArrayList<>(TYPES.length);
+        for (int i = 0; i < TYPES.length; i++)
+        {
+            final ContainerSnapshot snapshot = last.get(i);
+            if (snapshot != null)
+            {
+                snapshots.add(snapshot);
+            }
+        }
+        return snapshots;
+    }
+
+    void shutDown()
+    {
+        executor.shutdown();
+        try
+        {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void schedule()
+    {
+        if (scheduled.compareAndSet(false, true))
+        {
+            executor.execute(this::run);
+        }
+    }
+
+    private void run()
+    {
+        scheduled.set(false);
+
+        try
+        {
+            // Only containers with a new snapshot are compared and priced again
+            for (int i = 0; i < TYPES.length; i++)
+            {
+                final ContainerSnapshot snapshot = pending.getAndSet(i, null);
+                if (snapshot != null)
+                {
+                    last.set(i, snapshot);
+                    bankCalculation.update(snapshot);
+                }
+            }
+
+            publisher.accept(bankCalculation.calculateValue());
+        }
+        catch (Exception e)
+        {
+            log.warn("Exception occurred while valuing containers", e);
+        }
+    }
+}
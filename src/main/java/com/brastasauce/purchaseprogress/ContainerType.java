@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import net.runelite.api.InventoryID;
+
+// Containers that can count towards the progress value
+@Getter
+@AllArgsConstructor
+public enum ContainerType
+{
+    INVENTORY(InventoryID.INVENTORY),
+    EQUIPMENT(InventoryID.EQUIPMENT),
+    BANK(InventoryID.BANK),
+    LOOTING_BAG(InventoryID.LOOTING_BAG),
+    GRAND_EXCHANGE(null); // Built from the offers, there is no item container
+
+    private final InventoryID inventoryId;
+
+    public static ContainerType fromContainerId(int containerId)
+    {
+        for (ContainerType type : values())
+        {
+            if (type.inventoryId != null && type.inventoryId.getId() == containerId)
+            {
+                return type;
+            }
+        }
+        return null;
+    }
+}
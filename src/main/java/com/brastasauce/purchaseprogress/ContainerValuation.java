@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import net.runelite.api.ItemID;
+
+import java.util.Arrays;
+import java.util.function.IntUnaryOperator;
+
+// Last seen contents of one container with a cached value per tab
+class ContainerValuation
+{
+    private final ItemSnapshot items = new ItemSnapshot();
+    private int[] tabSizes = new int[0];
+
+    // Value and tab of every slot, so a changed slot only moves its own tab by the difference
+    private long[] slotValues = new long[0];
+    private int[] slotTabs = new int[0];
+
+    // Index 0 holds the untabbed slots at the end of the container, 1-n the numbered tabs
+    private long[] tabValues = new long[1];
+    private long itemsValue;
+
+    // Kept as a long, coins across several slots can add up past Integer.MAX_VALUE
+    private long gold;
+
+    long getGold()
+    {
+        return gold;
+    }
+
+    // Value of everything but coins and tokens
+    long getItemsValue()
+    {
+        return itemsValue;
+    }
+
+    long getTabValue(int tab)
+    {
+        // Tab 0 in the config means the entire container
+        return tab == 0 || tab >= tabValues.length ? itemsValue : tabValues[tab];
+    }
+
+    // Returns true if the container changed since the last update
+    boolean update(ContainerSnapshot snapshot, IntUnaryOperator unitPrice)
+    {
+        final int[] itemIds = snapshot.getItemIds();
+        final int[] quantities = snapshot.getQuantities();
+
+        // Slots moved between tabs, every tab has to be summed again
+        if (itemIds.length != items.size() || !Arrays.equals(tabSizes, snapshot.getTabSizes()))
+        {
+            items.resize(itemIds.length);
+            for (int i = 0; i < itemIds.length; i++)
+            {
+                items.set(i, itemIds[i], quantities[i]);
+            }
+
+            tabSizes = snapshot.getTabSizes().clone();
+            reprice(unitPrice);
+            return true;
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < itemIds.length; i++)
+        {
+            final long oldGold = gold(items.getId(i), items.getQuantity(i));
+            if (items.set(i, itemIds[i], quantities[i]))
+            {
+                gold += gold(itemIds[i], quantities[i]) - oldGold;
+                final long value = (long) unitPrice.applyAsInt(itemIds[i]) * quantities[i];
+                final long delta = value - slotValues[i];
+                slotValues[i] = value;
+                tabValues[slotTabs[i]] += delta;
+                itemsValue += delta;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    void reprice(IntUnaryOperator unitPrice)
+    {
+        final int size = items.size();
+        if (slotValues.length != size)
+        {
+            slotValues = new long[size];
+            slotTabs = new int[size];
+        }
+
+        if (tabValues.length != tabSizes.length + 1)
+        {
+            tabValues = new long[tabSizes.length + 1];
+        }
+        Arrays.fill(tabValues, 0);
+        itemsValue = 0;
+        gold = 0;
+
+        // Numbered tabs come first, untabbed slots fill the rest
+        int tab = 1;
+        int tabEnd = tabSizes.length > 0 ? tabSizes[0] : 0;
+        for (int i = 0; i < size; i++)
+        {
+            while (tab != 0 && i >= tabEnd)
+            {
+                tab = tab < tabSizes.length ? tab + 1 : 0;
+                tabEnd = tab == 0 ? size : tabEnd + tabSizes[tab - 1];
+            }
+
+            gold += gold(items.getId(i), items.getQuantity(i));
+            final long value = (long) unitPrice.applyAsInt(items.getId(i)) * items.getQuantity(i);
+            slotValues[i] = value;
+            slotTabs[i] = tab;
+            tabValues[tab] += value;
+            itemsValue += value;
+        }
+    }
+
+    private static long gold(int itemId, int quantity)
+    {
+        switch (itemId)
+        {
+            case ItemID.COINS_995:
+                return quantity;
+            case ItemID.PLATINUM_TOKEN:
+                return quantity * 1000L;
+            default:
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
+import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Goal edits applied together in one client thread task, saved once and repainted once.
+// Edits run in order against the live goals, if any of them can't be applied none of them are kept.
+public class GoalBatch
+{
+    interface Edit
+    {
+        // Checks the edit before touching the goals, returns false without changing anything if it can't apply
+        boolean apply(PurchaseProgressPlugin plugin);
+    }
+
+    private final List<Edit> edits = new ArrayList<>();
+
+    public GoalBatch addItem(PurchaseProgressItem item)
+    {
+        return add(plugin -> plugin.applyAddItem(item));
+    }
+
+    public GoalBatch removeItem(PurchaseProgressItem item)
+    {
+        return add(plugin -> plugin.applyRemoveItem(item));
+    }
+
+    public GoalBatch shiftItem(int itemIndex, boolean shiftUp)
+    {
+        return add(plugin -> plugin.applyShiftItem(itemIndex, shiftUp));
+    }
+
+    public GoalBatch sortItems(boolean sortAscending)
+    {
+        return add(plugin -> plugin.applySortItems(sortAscending));
+    }
+
+    public GoalBatch addGroup(String name)
+    {
+        return add(plugin -> plugin.applyAddGroup(name));
+    }
+
+    public GoalBatch renameGroup(PurchaseProgressGroup group, String name)
+    {
+        return add(plugin -> plugin.applyRenameGroup(group, name));
+    }
+
+    public GoalBatch removeGroup(PurchaseProgressGroup group, boolean removeItems)
+    {
+        return add(plugin -> plugin.applyRemoveGroup(group, removeItems));
+    }
+
+    public GoalBatch switchGroupCollapse(PurchaseProgressGroup group)
+    {
+        return add(plugin -> plugin.applySwitchGroupCollapse(group));
+    }
+
+    // A null parent name moves the group back to the top level
+    public GoalBatch nestGroup(PurchaseProgressGroup group, String parentName)
+    {
+        return add(plugin -> plugin.applyNestGroup(group, parentName));
+    }
+
+    public GoalBatch shiftGroup(int groupIndex, boolean shiftUp)
+    {
+        return add(plugin -> plugin.applyShiftGroup(groupIndex, shiftUp));
+    }
+
+    public GoalBatch addItemsToGroup(PurchaseProgressGroup group, List<PurchaseProgressItem> items)
+    {
+        return add(plugin -> plugin.applyAddItemsToGroup(group, items));
+    }
+
+    public GoalBatch removeItemFromGroup(PurchaseProgressGroup group, PurchaseProgressItem item)
+    {
+        return add(plugin -> plugin.applyRemoveItemFromGroup(group, item));
+    }
+
+    public GoalBatch shiftItemInGroup(PurchaseProgressGroup group, int itemIndex, boolean shiftUp)
+    {
+        return add(plugin -> plugin.applyShiftItemInGroup(group, itemIndex, shiftUp));
+    }
+
+    public boolean isEmpty()
+    {
+        return edits.isEmpty();
+    }
+
+    List<Edit> getEdits()
+    {
+        return Collections.unmodifiableList(edits);
+    }
+
+    private GoalBatch add(Edit edit)
+    {
+        edits.add(edit);
+        return this;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
+import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Where every goal item and group sits, kept alongside the lists so lookups don't scan them
+public class GoalIndex
+{
+    public static final int UNGROUPED = -1;
+    public static final int MISSING = -2;
+
+    // Item id to the group it is in (or UNGROUPED) and its position within that list
+    private final IntIntMap itemGroups = new IntIntMap(64);
+    private final IntIntMap itemPositions = new IntIntMap(64);
+
+    private final Map<String, Integer> groupPositions = new HashMap<>();
+
+    private List<PurchaseProgressItem> items = Collections.emptyList();
+    private List<PurchaseProgressGroup> groups = Collections.emptyList();
+
+    public void rebuild(List<PurchaseProgressItem> items, List<PurchaseProgressGroup> groups)
+    {
+        this.items = items;
+        this.groups = groups;
+
+        itemGroups.clear();
+        itemPositions.clear();
+        groupPositions.clear();
+
+        reindexItems(UNGROUPED, 0);
+        reindexGroups(0);
+    }
+
+    public boolean contains(int itemId)
+    {
+        return itemGroups.containsKey(itemId);
+    }
+
+    // Group index of the item, UNGROUPED or MISSING
+    public int getGroup(int itemId)
+    {
+        return itemGroups.get(itemId, MISSING);
+    }
+
+    public int getPosition(int itemId)
+    {
+        return itemPositions.get(itemId, -1);
+    }
+
+    public boolean containsGroup(String name)
+    {
+        return groupPositions.containsKey(name);
+    }
+
+    public int getGroupIndex(String name)
+    {
+        final Integer index = groupPositions.get(name);
+        return index == null ? -1 : index;
+    }
+
+    // Positions from the given one onwards have shifted, only that tail is walked
+    public void reindexItems(int group, int from)
+    {
+        reindexItems(group, from, Integer.MAX_VALUE);
+    }
+
+    public void reindexItems(int group, int from, int count)
+    {
+        final List<PurchaseProgressItem> list = group == UNGROUPED ? items : groups.get(group).getItems();
+        final int end = (int) Math.min(list.size(), (long) from + count);
+        for (int i = from; i < end; i++)
+        {
+            final int itemId = list.get(i).getItemId();
+            itemGroups.put(itemId, group);
+            itemPositions.put(itemId, i);
+        }
+    }
+
+    public void reindexGroups(int from)
+    {
+        reindexGroups(from, Integer.MAX_VALUE);
+    }
+
+    public void reindexGroups(int from, int count)
+    {
+        final int end = (int) Math.min(groups.size(), (long) from + count);
+        for (int i = from; i < end; i++)
+        {
+            groupPositions.put(groups.get(i).getName(), i);
+            reindexItems(i, 0);
+        }
+    }
+
+    public void removeItem(int itemId)
+    {
+        itemGroups.remove(itemId);
+        itemPositions.remove(itemId);
+    }
+
+    public void removeGroup(String name)
+    {
+        groupPositions.remove(name);
+    }
+
+    public void renameGroup(String oldName, String newName)
+    {
+        final Integer index = groupPositions.remove(oldName);
+        if (index != null)
+        {
+            groupPositions.put(newName, index);
+        }
+    }
+}
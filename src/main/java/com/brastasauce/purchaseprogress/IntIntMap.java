@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import java.util.Arrays;
+
+// Open addressing int to int map so item lookups don't box every id
+public class IntIntMap
+{
+    private static final int FREE = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    public IntIntMap()
+    {
+        this(16);
+    }
+
+    public IntIntMap(int expectedSize)
+    {
+        int capacity = 16;
+        while (capacity < expectedSize * 2)
+        {
+            capacity <<= 1;
+        }
+
+        allocate(capacity);
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public boolean containsKey(int key)
+    {
+        return keys[find(key)] != FREE;
+    }
+
+    public int get(int key, int defaultValue)
+    {
+        final int index = find(key);
+        return keys[index] == FREE ? defaultValue : values[index];
+    }
+
+    public void put(int key, int value)
+    {
+        final int index = find(key);
+        if (keys[index] == FREE)
+        {
+            keys[index] = key;
+            values[index] = value;
+            if (++size * 2 > keys.length)
+            {
+                rehash(keys.length << 1);
+            }
+            return;
+        }
+
+        values[index] = value;
+    }
+
+    // Adds delta to the stored value, removing the entry once it reaches zero
+    public void add(int key, int delta)
+    {
+        final int index = find(key);
+        if (keys[index] == FREE)
+        {
+            if (delta != 0)
+            {
+                put(key, delta);
+            }
+            return;
+        }
+
+        values[index] += delta;
+        if (values[index] == 0)
+        {
+            removeAt(index);
+        }
+    }
+
+    public void remove(int key)
+    {
+        final int index = find(key);
+        if (keys[index] != FREE)
+        {
+            removeAt(index);
+        }
+    }
+
+    public int[] keys()
+    {
+        final int[] result = new int[size];
+        int count = 0;
+        for (int key : keys)
+        {
+            if (key != FREE)
+            {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    public void clear()
+    {
+        Arrays.fill(keys, FREE);
+        size = 0;
+    }
+
+    private int find(int key)
+    {
+        int index = mix(key) & mask;
+        while (keys[index] != FREE && keys[index] != key)
+        {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void removeAt(int index)
+    {
+        // Backward shift deletion keeps probe chains intact without tombstones
+        int gap = index;
+        int next = (gap + 1) & mask;
+
+        while (keys[next] != FREE)
+        {
+            final int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask))
+            {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+
+        keys[gap] = FREE;
+        size--;
+    }
+
+    private void rehash(int capacity)
+    {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+
+        allocate(capacity);
+
+        for (int i = 0; i < oldKeys.length; i++)
+        {
+            if (oldKeys[i] != FREE)
+            {
+                final int index = find(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity)
+    {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, FREE);
+        mask = capacity - 1;
+    }
+
+    private static int mix(int key)
+    {
+        final int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import net.runelite.api.ItemComposition;
+import net.runelite.client.game.ItemManager;
+import net.runelite.client.game.ItemVariationMapping;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.Arrays;
+
+// Maps raw container ids to the id they should be priced as, resolved once per id per session
+@Singleton
+public class ItemCanonicalizer
+{
+    public static final int SKIP = -1;
+
+    // Stored as canonical id + 1 so an untouched entry (0) means unresolved
+    private static final int UNRESOLVED = 0;
+    private static final int SKIP_ENTRY = -1;
+
+    private int[] table = new int[32768];
+
+    @Inject
+    private ItemManager itemManager;
+
+    // Client thread only, item compositions are looked up on first sight of an id
+    public int canonicalize(int itemId)
+    {
+        if (itemId < 0)
+        {
+            return SKIP;
+        }
+
+        if (itemId >= table.length)
+        {
+            table = Arrays.copyOf(table, Math.max(itemId + 1, table.length * 2));
+        }
+
+        int entry = table[itemId];
+        if (entry == UNRESOLVED)
+        {
+            entry = resolve(itemId);
+            table[itemId] = entry;
+        }
+
+        return entry == SKIP_ENTRY ? SKIP : entry - 1;
+    }
+
+    private int resolve(int itemId)
+    {
+        final ItemComposition composition = itemManager.getItemComposition(itemId);
+
+        // Placeholders hold no items
+        if (composition.getPlaceholderTemplateId() != -1)
+        {
+            return SKIP_ENTRY;
+        }
+
+        // Noted items are priced as the unnoted item
+        int canonicalId = itemId;
+        ItemComposition canonical = composition;
+        if (composition.getNote() != -1)
+        {
+            canonicalId = composition.getLinkedNoteId();
+            canonical = itemManager.getItemComposition(canonicalId);
+        }
+
+        // Untradeable charged, degraded and ornamented variants are priced as their base item
+        if (!canonical.isTradeable())
+        {
+            canonicalId = ItemVariationMapping.map(canonicalId);
+        }
+
+        return canonicalId + 1;
+    }
+}
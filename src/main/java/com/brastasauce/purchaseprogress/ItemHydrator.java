@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import net.runelite.client.game.ItemManager;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+// Fills in names and icons of loaded goals a few at a time, so a long goal list doesn't stall the client thread
+@Singleton
+public class ItemHydrator
+{
+    private static final long PASS_BUDGET = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final ItemManager itemManager;
+
+    // Ids of items shown on screen are moved to the front, an id can be queued twice and is skipped once filled in.
+    // Rows show snapshot copies, so the live item is looked up by id when its turn comes.
+    private final Deque<Integer> queue = new ArrayDeque<>();
+
+    @Inject
+    ItemHydrator(ItemManager itemManager)
+    {
+        this.itemManager = itemManager;
+    }
+
+    public synchronized void enqueue(PurchaseProgressItem item)
+    {
+        queue.addLast(item.getItemId());
+    }
+
+    public synchronized void prioritize(PurchaseProgressItem item)
+    {
+        if (!item.isHydrated())
+        {
+            queue.addFirst(item.getItemId());
+        }
+    }
+
+    public synchronized boolean isEmpty()
+    {
+        return queue.isEmpty();
+    }
+
+    // Runs on the client thread until the pass budget is spent, returns the ids filled in
+    public Set<Integer> hydrate(IntFunction<PurchaseProgressItem> liveItems)
+    {
+        final Set<Integer> hydrated = new HashSet<>();
+        final long start = System.nanoTime();
+
+        while (System.nanoTime() - start < PASS_BUDGET)
+        {
+            final Integer itemId;
+            synchronized (this)
+            {
+                itemId = queue.pollFirst();
+            }
+
+            if (itemId == null)
+            {
+                break;
+            }
+
+            // Null once the goal has been removed
+            final PurchaseProgressItem item = liveItems.apply(itemId);
+            if (item != null && !item.isHydrated())
+            {
+                fill(item);
+                hydrated.add(item.getItemId());
+            }
+        }
+
+        return hydrated;
+    }
+
+    // Runs on the client thread, fills in every given item still waiting regardless of the budget
+    public Set<Integer> hydrateAll(Collection<PurchaseProgressItem> items)
+    {
+        final Set<Integer> hydrated = new HashSet<>();
+        for (PurchaseProgressItem item : items)
+        {
+            if (!item.isHydrated())
+            {
+                fill(item);
+                hydrated.add(item.getItemId());
+            }
+        }
+        return hydrated;
+    }
+
+    private void fill(PurchaseProgressItem item)
+    {
+        item.setImage(itemManager.getImage(item.getItemId()));
+        item.setName(itemManager.getItemComposition(item.getItemId()).getName());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import java.util.Arrays;
+
+// Reusable copy of an item container held as parallel primitive arrays
+public class ItemSnapshot
+{
+    private int[] ids = new int[0];
+    private int[] quantities = new int[0];
+    private int size;
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int getId(int slot)
+    {
+        return ids[slot];
+    }
+
+    public int getQuantity(int slot)
+    {
+        return quantities[slot];
+    }
+
+    public void resize(int newSize)
+    {
+        for (int i = newSize; i < size; i++)
+        {
+            set(i, -1, 0);
+        }
+
+        if (newSize > ids.length)
+        {
+            final int oldLength = ids.length;
+            ids = Arrays.copyOf(ids, newSize);
+            quantities = Arrays.copyOf(quantities, newSize);
+            Arrays.fill(ids, oldLength, newSize, -1);
+        }
+
+        for (int i = size; i < newSize; i++)
+        {
+            ids[i] = -1;
+            quantities[i] = 0;
+        }
+
+        size = newSize;
+    }
+
+    // Returns true if the slot held something different before
+    public boolean set(int slot, int id, int quantity)
+    {
+        if (ids[slot] == id && quantities[slot] == quantity)
+        {
+            return false;
+        }
+
+        ids[slot] = id;
+        quantities[slot] = quantity;
+        return true;
+    }
+}
@@ -24,10 +24,13 @@
  */
 package com.brastasauce.purchaseprogress;
 
+import com.brastasauce.purchaseprogress.data.PersistenceMode;
+import com.brastasauce.purchaseprogress.price.PriceSourceType;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
 import net.runelite.client.config.Range;
+import net.runelite.client.config.Units;
 
 @ConfigGroup(PurchaseProgressPlugin.CONFIG_GROUP)
 public interface PurchaseProgressConfig extends Config
@@ -55,14 +58,130 @@ public interface PurchaseProgressConfig extends Config
 		return 0;
 	}
 
+	@ConfigItem(
+		keyName = "includeInventory",
+		name = "Include Inventory",
+		description = "Include the value of inventory items in addition to gold.",
+		position = 2
+	)
+	default boolean includeInventory()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "includeEquipment",
+		name = "Include Equipment",
+		description = "Include the value of worn equipment.",
+		position = 3
+	)
+	default boolean includeEquipment()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "includeLootingBag",
+		name = "Include Looting Bag",
+		description = "Include the value of the looting bag. Check the bag once to load its contents.",
+		position = 4
+	)
+	default boolean includeLootingBag()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		keyName = "includeGrandExchange",
+		name = "Include Grand Exchange",
+		description = "Include gold and items held in Grand Exchange offers.",
+		position = 5
+	)
+	default boolean includeGrandExchange()
+	{
+		return false;
+	}
+
 	@ConfigItem(
 			keyName = "onlyTrackFirstItem",
 			name = "Only Track First Item",
 			description = "Only displays progress for the first listed item.",
-			position = 2
+			position = 6
 	)
 	default boolean onlyTrackFirstItem()
 	{
 		return false;
 	}
+
+	@ConfigItem(
+		keyName = "hotRefreshMinutes",
+		name = "Hot Price Refresh",
+		description = "How often prices are refreshed for visible items that are nearly affordable or moving quickly.",
+		position = 7
+	)
+	@Range(min = 1)
+	@Units(Units.MINUTES)
+	default int hotRefreshMinutes()
+	{
+		return 1;
+	}
+
+	@ConfigItem(
+		keyName = "normalRefreshMinutes",
+		name = "Price Refresh",
+		description = "How often prices are refreshed for visible items and the last seen bank.",
+		position = 8
+	)
+	@Range(min = 1)
+	@Units(Units.MINUTES)
+	default int normalRefreshMinutes()
+	{
+		return 5;
+	}
+
+	@ConfigItem(
+		keyName = "coldRefreshMinutes",
+		name = "Background Price Refresh",
+		description = "How often prices are refreshed for collapsed groups, or when the panel is hidden or you are logged out.",
+		position = 9
+	)
+	@Range(min = 1)
+	@Units(Units.MINUTES)
+	default int coldRefreshMinutes()
+	{
+		return 30;
+	}
+
+	@ConfigItem(
+		keyName = "priceSource",
+		name = "Price Source",
+		description = "Where item and bank prices come from.",
+		position = 10
+	)
+	default PriceSourceType priceSource()
+	{
+		return PriceSourceType.GUIDE;
+	}
+
+	@ConfigItem(
+		keyName = "realTimePriceUrl",
+		name = "Real-time Price URL",
+		description = "Latest prices endpoint in the wiki format, a file: URL can point at a local copy.",
+		position = 11
+	)
+	default String realTimePriceUrl()
+	{
+		return "https://prices.runescape.wiki/api/v1/osrs/latest";
+	}
+
+	@ConfigItem(
+		keyName = "persistenceMode",
+		name = "Goal Storage",
+		description = "Config rewrites the goal lists on each change, journal file appends only the change to a local file.",
+		position = 12
+	)
+	default PersistenceMode persistenceMode()
+	{
+		return PersistenceMode.CONFIG;
+	}
 }
@@ -24,11 +24,14 @@
  */
 package com.brastasauce.purchaseprogress;
 
+import com.brastasauce.purchaseprogress.data.GoalSnapshot;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressDataManager;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import com.brastasauce.purchaseprogress.price.PriceProvider;
+import com.brastasauce.purchaseprogress.price.PriceHistory;
+import com.brastasauce.purchaseprogress.price.PriceRefreshScheduler;
 import com.brastasauce.purchaseprogress.ui.PurchaseProgressPluginPanel;
-import com.google.gson.Gson;
 import com.google.inject.Provides;
 
 import javax.inject.Inject;
@@ -40,11 +43,15 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.ScriptID;
+import net.runelite.api.events.GameTick;
+import net.runelite.api.events.GrandExchangeOfferChanged;
+import net.runelite.api.events.ItemContainerChanged;
 import net.runelite.api.events.ScriptPostFired;
 import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.eventbus.Subscribe;
+import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
@@ -56,8 +63,13 @@ import net.runelite.client.util.ImageUtil;
 import java.awt.image.BufferedImage;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
 
 @Slf4j
 @PluginDescriptor(
@@ -70,6 +82,16 @@ public class PurchaseProgressPlugin extends Plugin
 	private static final String ICON_IMAGE = "/panel_icon.png";
 	private static final int MAX_GROUP_NAME_LENGTH = 50;
 
+	// Nest dialog entry for no parent, its own object so no group name can be taken for it
+	private static final Object TOP_LEVEL = new Object()
+	{
+		@Override
+		public String toString()
+		{
+			return "(Top level)";
+		}
+	};
+
 	@Getter
 	@Setter
 	private List<PurchaseProgressItem> items = new ArrayList<>();
@@ -80,7 +102,15 @@ public class PurchaseProgressPlugin extends Plugin
 
 	@Getter
 	@Setter
-	private long value = 0;
+	private volatile long value = 0;
+
+	// Only touched on the client thread, like the lists it indexes
+	@Getter
+	private final GoalIndex goalIndex = new GoalIndex();
+
+	// What the panel and the scheduler read, the lists above stay on the client thread
+	@Getter
+	private volatile GoalSnapshot snapshot = GoalSnapshot.EMPTY;
 
 	@Inject
 	private ClientThread clientThread;
@@ -95,7 +125,22 @@ public class PurchaseProgressPlugin extends Plugin
 	private BankCalculation bankCalculation;
 
 	@Inject
-	private Gson gson;
+	private PriceProvider priceProvider;
+
+	@Inject
+	private PriceRefreshScheduler refreshScheduler;
+
+	@Getter
+	@Inject
+	private PriceHistory priceHistory;
+
+	@Getter
+	@Inject
+	private WealthTracker wealthTracker;
+
+	@Getter
+	@Inject
+	private ItemHydrator itemHydrator;
 
 	@Inject
 	private PurchaseProgressDataManager dataManager;
@@ -112,22 +157,24 @@ public class PurchaseProgressPlugin extends Plugin
 	@Inject
 	private ClientToolbar clientToolbar;
 
+	@Inject
+	private ScheduledExecutorService executor;
+
 	private PurchaseProgressPluginPanel panel;
 	private NavigationButton navButton;
+	private BankValuationWorker valuationWorker;
+	private BankEventCoalescer bankEventCoalescer;
+
+	// Items whose refresh has been handed to the price source and not answered yet
+	private final IntIntMap refreshing = new IntIntMap();
 
 	public void addItem(PurchaseProgressItem item)
 	{
 		clientThread.invokeLater(() ->
 		{
-			if (!containsItem(item))
+			if (applyBatch(new GoalBatch().addItem(item)))
 			{
-				items.add(item);
-				dataManager.saveData();
-				SwingUtilities.invokeLater(() ->
-				{
-					panel.switchToProgress();
-					panel.updateProgressPanels();
-				});
+				SwingUtilities.invokeLater(() -> panel.switchToProgress());
 			}
 			else
 			{
@@ -138,11 +185,7 @@ public class PurchaseProgressPlugin extends Plugin
 
 	public void removeItem(PurchaseProgressItem item)
 	{
-		clientThread.invokeLater(() -> {
-			items.remove(item);
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+		apply(new GoalBatch().removeItem(item));
 	}
 
 	public void addGroup()
@@ -160,17 +203,7 @@ public class PurchaseProgressPlugin extends Plugin
 			name = name.substring(0, MAX_GROUP_NAME_LENGTH);
 		}
 
-		String groupName = name;
-		clientThread.invokeLater(() -> {
-			PurchaseProgressGroup group = new PurchaseProgressGroup(groupName, new ArrayList<>());
-
-			if (!groups.contains(group))
-			{
-				groups.add(group);
-				dataManager.saveData();
-				SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-			}
-		});
+		apply(new GoalBatch().addGroup(name));
 	}
 
 	public void editGroup(PurchaseProgressGroup group)
@@ -188,185 +221,720 @@ public class PurchaseProgressPlugin extends Plugin
 			name = name.substring(0, MAX_GROUP_NAME_LENGTH);
 		}
 
-		String groupName = name;
-		clientThread.invokeLater(() -> {
-			PurchaseProgressGroup nameCheck = groups.stream().filter(o -> o.getName().equals(groupName)).findFirst().orElse(null);
+		apply(new GoalBatch().renameGroup(group, name));
+	}
 
-			if (nameCheck == null)
+	public void nestGroup(PurchaseProgressGroup group)
+	{
+		// Groups already below this one can't become its parent
+		final GoalSnapshot goalSnapshot = snapshot;
+		final List<Object> options = new ArrayList<>();
+		options.add(TOP_LEVEL);
+		for (PurchaseProgressGroup other : goalSnapshot.getGroups())
+		{
+			if (!other.getName().equals(group.getName()) && !isNestedIn(other, group.getName()))
 			{
-				group.setName(groupName);
-				dataManager.saveData();
-				SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
+				options.add(other.getName());
 			}
-		});
+		}
+
+		final Object parent = group.getParent() == null ? TOP_LEVEL : group.getParent().getName();
+		final Object choice = JOptionPane.showInputDialog(panel, "Select the group to nest this group in.", "Nest Group", JOptionPane.PLAIN_MESSAGE, null, options.toArray(), parent);
+
+		if (choice == null)
+		{
+			return;
+		}
+
+		apply(new GoalBatch().nestGroup(group, choice == TOP_LEVEL ? null : (String) choice));
 	}
 
 	public void removeGroup(PurchaseProgressGroup group, boolean removeItems)
 	{
-		clientThread.invokeLater(() -> {
-			if (!removeItems)
+		apply(new GoalBatch().removeGroup(group, removeItems));
+	}
+
+	public void addItemsToGroup(PurchaseProgressGroup group, List<PurchaseProgressItem> selectedItems)
+	{
+		apply(new GoalBatch().addItemsToGroup(group, selectedItems));
+	}
+
+	public void removeItemFromGroup(PurchaseProgressGroup group, PurchaseProgressItem item)
+	{
+		apply(new GoalBatch().removeItemFromGroup(group, item));
+	}
+
+	public void switchGroupCollapse(PurchaseProgressGroup group)
+	{
+		apply(new GoalBatch().switchGroupCollapse(group));
+	}
+
+	public void sort(boolean sortAscending)
+	{
+		apply(new GoalBatch().sortItems(sortAscending));
+	}
+
+	public void shiftGroup(int groupIndex, boolean shiftUp)
+	{
+		apply(new GoalBatch().shiftGroup(groupIndex, shiftUp));
+	}
+
+	public void shiftItem(int itemIndex, boolean shiftUp)
+	{
+		apply(new GoalBatch().shiftItem(itemIndex, shiftUp));
+	}
+
+	public void shiftItemInGroup(PurchaseProgressGroup group, int itemIndex, boolean shiftUp)
+	{
+		apply(new GoalBatch().shiftItemInGroup(group, itemIndex, shiftUp));
+	}
+
+	// Applies every edit of the batch in a single client thread task
+	public void apply(GoalBatch batch)
+	{
+		clientThread.invokeLater(() -> applyBatch(batch));
+	}
+
+	// Returns whether the batch was applied, a rejected batch leaves the goals as they were
+	boolean applyBatch(GoalBatch batch)
+	{
+		final List<GoalBatch.Edit> edits = batch.getEdits();
+		if (edits.isEmpty())
+		{
+			return false;
+		}
+
+		// A single edit keeps its own small journal record, larger batches are written once at the end
+		final boolean grouped = edits.size() > 1;
+		if (grouped)
+		{
+			dataManager.beginBatch();
+		}
+
+		for (GoalBatch.Edit edit : edits)
+		{
+			if (!edit.apply(this))
 			{
-				items.addAll(group.getItems());
+				if (grouped)
+				{
+					restoreSnapshot();
+					dataManager.endBatch(false);
+				}
+				return false;
 			}
-			groups.remove(group);
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+		}
+
+		if (grouped)
+		{
+			dataManager.endBatch(true);
+		}
+
+		publishSnapshot();
+		SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
+		return true;
+	}
+
+	// Puts back the goals as last published, which is how they were before the batch started
+	private void restoreSnapshot()
+	{
+		items = snapshot.copyItems();
+		groups = snapshot.copyGroups();
+		goalIndex.rebuild(items, groups);
+	}
+
+	// Single edits, only called on the client thread through a batch
+
+	boolean applyAddItem(PurchaseProgressItem item)
+	{
+		if (goalIndex.contains(item.getItemId()))
+		{
+			return false;
+		}
+
+		items.add(item);
+		goalIndex.reindexItems(GoalIndex.UNGROUPED, items.size() - 1);
+		dataManager.itemAdded(null, item.getItemId());
+		return true;
+	}
+
+	boolean applyRemoveItem(PurchaseProgressItem item)
+	{
+		if (goalIndex.getGroup(item.getItemId()) != GoalIndex.UNGROUPED)
+		{
+			return false;
+		}
+
+		final int index = goalIndex.getPosition(item.getItemId());
+		items.remove(index);
+		goalIndex.removeItem(item.getItemId());
+		goalIndex.reindexItems(GoalIndex.UNGROUPED, index);
+		dataManager.itemRemoved(null, index);
+		return true;
+	}
+
+	boolean applyShiftItem(int itemIndex, boolean shiftUp)
+	{
+		// The panel may have been laid out from an older snapshot
+		if (!canShift(items, itemIndex, shiftUp))
+		{
+			return false;
+		}
+
+		final int targetIndex = shiftUp ? itemIndex - 1 : itemIndex + 1;
+		Collections.swap(items, itemIndex, targetIndex);
+		goalIndex.reindexItems(GoalIndex.UNGROUPED, Math.min(itemIndex, targetIndex), 2);
+		dataManager.itemMoved(null, itemIndex, null, targetIndex);
+		return true;
+	}
+
+	boolean applySortItems(boolean sortAscending)
+	{
+		if (items.isEmpty())
+		{
+			return true;
+		}
+
+		if (sortAscending)
+		{
+			items.sort(Comparator.naturalOrder());
+		}
+		else
+		{
+			items.sort(Comparator.reverseOrder());
+		}
+
+		goalIndex.reindexItems(GoalIndex.UNGROUPED, 0);
+		dataManager.itemsSorted();
+		return true;
 	}
 
-	public void addItemsToGroup(PurchaseProgressGroup group, List<String> itemNames)
+	boolean applyAddGroup(String name)
 	{
-		clientThread.invokeLater(() -> {
-			for (String itemName : itemNames)
+		if (goalIndex.containsGroup(name))
+		{
+			return false;
+		}
+
+		PurchaseProgressGroup group = new PurchaseProgressGroup(name, new ArrayList<>());
+		groups.add(group);
+		goalIndex.reindexGroups(groups.size() - 1);
+		dataManager.groupAdded(group);
+		return true;
+	}
+
+	boolean applyRenameGroup(PurchaseProgressGroup shownGroup, String name)
+	{
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		if (group == null || goalIndex.containsGroup(name))
+		{
+			return false;
+		}
+
+		goalIndex.renameGroup(group.getName(), name);
+		group.setName(name);
+		dataManager.groupUpdated(group);
+		return true;
+	}
+
+	boolean applyRemoveGroup(PurchaseProgressGroup shownGroup, boolean removeItems)
+	{
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		if (group == null)
+		{
+			return false;
+		}
+
+		final int index = goalIndex.getGroupIndex(group.getName());
+		for (PurchaseProgressItem item : group.getItems())
+		{
+			goalIndex.removeItem(item.getItemId());
+		}
+
+		// Nested groups move up to the removed group's parent, then what is left of it leaves the totals above
+		for (PurchaseProgressGroup child : groups)
+		{
+			if (child.getParent() == group)
 			{
-				PurchaseProgressItem item = items.stream().filter(o -> o.getName().equals(itemName)).findFirst().orElse(null);
-				group.getItems().add(item);
-				items.remove(item);
+				child.setParent(group.getParent());
 			}
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+		}
+		group.setParent(null);
+
+		if (!removeItems)
+		{
+			items.addAll(group.getItems());
+			goalIndex.reindexItems(GoalIndex.UNGROUPED, items.size() - group.getItems().size());
+		}
+
+		groups.remove(index);
+		goalIndex.removeGroup(group.getName());
+		goalIndex.reindexGroups(index);
+		dataManager.groupRemoved(index, !removeItems);
+		return true;
 	}
 
-	public void removeItemFromGroup(PurchaseProgressGroup group, PurchaseProgressItem item)
+	boolean applySwitchGroupCollapse(PurchaseProgressGroup shownGroup)
 	{
-		clientThread.invokeLater(() -> {
-			group.getItems().remove(item);
-			items.add(item);
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		if (group == null)
+		{
+			return false;
+		}
+
+		group.setCollapsed(!group.isCollapsed());
+		dataManager.groupUpdated(group);
+		return true;
 	}
 
-	public void switchGroupCollapse(PurchaseProgressGroup group)
+	// Moves a group past the next group with the same parent, groups nested elsewhere keep their order
+	boolean applyShiftGroup(int groupIndex, boolean shiftUp)
 	{
-		clientThread.invokeLater(() -> {
-			group.setCollapsed(!group.isCollapsed());
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+		if (groupIndex < 0 || groupIndex >= groups.size())
+		{
+			return false;
+		}
+
+		final PurchaseProgressGroup group = groups.get(groupIndex);
+		final int step = shiftUp ? -1 : 1;
+		int targetIndex = groupIndex + step;
+		while (targetIndex >= 0 && targetIndex < groups.size() && groups.get(targetIndex).getParent() != group.getParent())
+		{
+			targetIndex += step;
+		}
+
+		if (targetIndex < 0 || targetIndex >= groups.size())
+		{
+			return false;
+		}
+
+		groups.add(targetIndex, groups.remove(groupIndex));
+		goalIndex.reindexGroups(Math.min(groupIndex, targetIndex), Math.abs(targetIndex - groupIndex) + 1);
+		dataManager.groupMoved(groupIndex, targetIndex);
+		return true;
+	}
+
+	// A null parent name moves the group back to the top level
+	boolean applyNestGroup(PurchaseProgressGroup shownGroup, String parentName)
+	{
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		final int parentIndex = parentName == null ? -1 : goalIndex.getGroupIndex(parentName);
+		final PurchaseProgressGroup parent = parentIndex == -1 ? null : groups.get(parentIndex);
+		if (group == null || (parentName != null && parent == null) || parent == group.getParent())
+		{
+			return false;
+		}
+
+		if (parent != null && (parent == group || parent.isNestedIn(group)))
+		{
+			return false;
+		}
+
+		group.setParent(parent);
+		dataManager.groupNested(group);
+		return true;
+	}
+
+	boolean applyAddItemsToGroup(PurchaseProgressGroup shownGroup, List<PurchaseProgressItem> selectedItems)
+	{
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		if (group == null)
+		{
+			return false;
+		}
+
+		final int groupIndex = goalIndex.getGroupIndex(group.getName());
+
+		// Marks which individual positions move, the list is then compacted in one pass
+		final boolean[] moved = new boolean[items.size()];
+		int count = 0;
+		for (PurchaseProgressItem item : selectedItems)
+		{
+			if (goalIndex.getGroup(item.getItemId()) == GoalIndex.UNGROUPED)
+			{
+				final int index = goalIndex.getPosition(item.getItemId());
+				count += moved[index] ? 0 : 1;
+				moved[index] = true;
+			}
+		}
+
+		if (count == 0)
+		{
+			return false;
+		}
+
+		// Walking down keeps every recorded position valid and the moved items in list order
+		final List<PurchaseProgressItem> groupItems = group.getItems();
+		final int insertAt = groupItems.size();
+		final PurchaseProgressItem[] movedItems = new PurchaseProgressItem[count];
+		for (int index = moved.length - 1; index >= 0; index--)
+		{
+			if (moved[index])
+			{
+				movedItems[--count] = items.get(index);
+				dataManager.itemMoved(null, index, group, insertAt);
+			}
+		}
+
+		int first = -1;
+		int kept = 0;
+		for (int index = 0; index < moved.length; index++)
+		{
+			if (moved[index])
+			{
+				first = first == -1 ? index : first;
+			}
+			else
+			{
+				items.set(kept++, items.get(index));
+			}
+		}
+		items.subList(kept, items.size()).clear();
+
+		long movedCost = 0;
+		for (PurchaseProgressItem item : movedItems)
+		{
+			movedCost += item.getGePrice();
+		}
+
+		groupItems.addAll(Arrays.asList(movedItems));
+		group.adjustTotals(movedCost, movedItems.length);
+		goalIndex.reindexItems(GoalIndex.UNGROUPED, first);
+		goalIndex.reindexItems(groupIndex, insertAt);
+		return true;
+	}
+
+	boolean applyRemoveItemFromGroup(PurchaseProgressGroup shownGroup, PurchaseProgressItem item)
+	{
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		if (group == null)
+		{
+			return false;
+		}
+
+		final int groupIndex = goalIndex.getGroupIndex(group.getName());
+		if (goalIndex.getGroup(item.getItemId()) != groupIndex)
+		{
+			return false;
+		}
+
+		// The shown item is a snapshot copy, the live one moves
+		final int index = goalIndex.getPosition(item.getItemId());
+		final PurchaseProgressItem liveItem = group.getItems().remove(index);
+		group.adjustTotals(-liveItem.getGePrice(), -1);
+		items.add(liveItem);
+		goalIndex.reindexItems(groupIndex, index);
+		goalIndex.reindexItems(GoalIndex.UNGROUPED, items.size() - 1);
+		dataManager.itemMoved(group, index, null, -1);
+		return true;
+	}
+
+	boolean applyShiftItemInGroup(PurchaseProgressGroup shownGroup, int itemIndex, boolean shiftUp)
+	{
+		final PurchaseProgressGroup group = findGroup(shownGroup);
+		if (group == null || !canShift(group.getItems(), itemIndex, shiftUp))
+		{
+			return false;
+		}
+
+		final int targetIndex = shiftUp ? itemIndex - 1 : itemIndex + 1;
+		Collections.swap(group.getItems(), itemIndex, targetIndex);
+		goalIndex.reindexItems(goalIndex.getGroupIndex(group.getName()), Math.min(itemIndex, targetIndex), 2);
+		dataManager.itemMoved(group, itemIndex, group, targetIndex);
+		return true;
+	}
+
+	public void updateItemPrices()
+	{
+		refreshPrices(true);
 	}
 
 	@Schedule(
-			period = 5,
-			unit = ChronoUnit.MINUTES
+			period = 10,
+			unit = ChronoUnit.SECONDS
 	)
-	public void updateItemPrices()
+	public void refreshDuePrices()
+	{
+		refreshPrices(false);
+	}
+
+	private void refreshPrices(boolean refreshAll)
 	{
+		// Goal items and the last seen containers keep their prices cached
+		final IntIntMap goals = new IntIntMap(64);
+		final IntIntMap due = new IntIntMap(64);
+		final IntIntMap referenced = new IntIntMap(1024);
+
+		// Runs on the scheduler thread, so the goals are read from the published snapshot
+		final GoalSnapshot goalSnapshot = snapshot;
+
 		// Group item prices
-		for (PurchaseProgressGroup group : groups)
+		for (PurchaseProgressGroup group : goalSnapshot.getGroups())
 		{
 			for (PurchaseProgressItem item : group.getItems())
 			{
-				item.setGePrice(itemManager.getItemPrice(item.getItemId()));
+				if (refreshAll || isRefreshDue(item, group.isCollapsed()))
+				{
+					due.put(item.getItemId(), 1);
+				}
+				goals.put(item.getItemId(), 1);
+				referenced.put(item.getItemId(), 1);
 			}
 		}
 
 		// Individual prices
-		for (PurchaseProgressItem item : items)
+		for (PurchaseProgressItem item : goalSnapshot.getItems())
 		{
-			item.setGePrice(itemManager.getItemPrice(item.getItemId()));
+			if (refreshAll || isRefreshDue(item, false))
+			{
+				due.put(item.getItemId(), 1);
+			}
+			goals.put(item.getItemId(), 1);
+			referenced.put(item.getItemId(), 1);
 		}
 
-		SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-	}
-
-	public void sort(boolean sortAscending)
-	{
-		clientThread.invokeLater(() -> {
-			if (!items.isEmpty())
+		// Every due item goes to the source in one batch, the goals are updated once it answers
+		final int[] dueItemIds;
+		synchronized (refreshing)
+		{
+			for (int itemId : due.keys())
 			{
-				if (sortAscending)
+				if (refreshing.containsKey(itemId))
 				{
-					items.sort(Comparator.naturalOrder());
+					due.remove(itemId);
 				}
 				else
 				{
-					items.sort(Comparator.reverseOrder());
+					refreshing.put(itemId, 1);
 				}
-
-				dataManager.saveData();
-				SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
 			}
-		});
-	}
+			dueItemIds = due.keys();
+		}
 
-	public void shiftGroup(int groupIndex, boolean shiftUp)
-	{
-		clientThread.invokeLater(() -> {
-			PurchaseProgressGroup shiftedGroup = groups.get(groupIndex);
+		if (dueItemIds.length > 0)
+		{
+			priceProvider.refresh(dueItemIds, itemIds -> clientThread.invokeLater(() -> applyPrices(itemIds)));
+		}
 
-			if (shiftUp)
+		if (refreshAll || refreshScheduler.isContainerRepriceDue())
+		{
+			for (ContainerSnapshot snapshot : valuationWorker.getLastSnapshots())
 			{
-				groups.set(groupIndex, groups.get(groupIndex - 1));
-				groups.set(groupIndex - 1, shiftedGroup);
+				for (int itemId : snapshot.getItemIds())
+				{
+					referenced.put(itemId, 1);
+				}
 			}
-			else
+
+			priceProvider.evict(referenced::containsKey);
+
+			// History is written on the same slower cadence rather than on every refresh
+			priceHistory.retain(goals::containsKey);
+			if (priceHistory.isDirty())
 			{
-				groups.set(groupIndex, groups.get(groupIndex + 1));
-				groups.set(groupIndex + 1, shiftedGroup);
+				dataManager.saveHistory();
 			}
 
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+			// Reprice the last known containers, the bank doesn't need to be open
+			repriceContainers();
+		}
 	}
 
-	public void shiftItem(int itemIndex, boolean shiftUp)
+	private void applyPrices(int[] itemIds)
 	{
-		clientThread.invokeLater(() -> {
-			PurchaseProgressItem shiftedItem = items.get(itemIndex);
+		final IntIntMap refreshed = new IntIntMap(itemIds.length);
+		synchronized (refreshing)
+		{
+			for (int itemId : itemIds)
+			{
+				refreshed.put(itemId, 1);
+				refreshing.remove(itemId);
+			}
+		}
+
+		final Set<Integer> changedItemIds = new HashSet<>();
 
-			// Out of bounds is checked before call in item panel
-			if (shiftUp)
+		for (PurchaseProgressGroup group : groups)
+		{
+			for (PurchaseProgressItem item : group.getItems())
 			{
-				items.set(itemIndex, items.get(itemIndex - 1));
-				items.set(itemIndex - 1, shiftedItem);
+				if (refreshed.containsKey(item.getItemId()))
+				{
+					updateItemPrice(item, changedItemIds);
+				}
 			}
-			else
+		}
+
+		for (PurchaseProgressItem item : items)
+		{
+			if (refreshed.containsKey(item.getItemId()))
 			{
-				items.set(itemIndex, items.get(itemIndex + 1));
-				items.set(itemIndex + 1, shiftedItem);
+				updateItemPrice(item, changedItemIds);
 			}
+		}
 
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+		// Only rows whose price moved are touched, the snapshot carries the new group totals
+		if (!changedItemIds.isEmpty())
+		{
+			publishSnapshot();
+			SwingUtilities.invokeLater(() -> panel.updateItems(changedItemIds));
+		}
 	}
 
-	public void shiftItemInGroup(PurchaseProgressGroup group, int itemIndex, boolean shiftUp)
+	private void repriceContainers()
 	{
-		clientThread.invokeLater(() -> {
-			List<PurchaseProgressItem> groupItems = group.getItems();
-			PurchaseProgressItem shiftedItem = group.getItems().get(itemIndex);
+		bankCalculation.invalidatePrices();
+		valuationWorker.revalue();
+	}
 
-			// Out of bounds is checked before call in group item panel
-			if (shiftUp)
+	private boolean isRefreshDue(PurchaseProgressItem item, boolean collapsed)
+	{
+		final PriceRefreshScheduler.Tier tier = refreshScheduler.getTier(item.getItemId(), item.getGePrice(), collapsed, value);
+		return refreshScheduler.isDue(item.getItemId(), tier);
+	}
+
+	private void updateItemPrice(PurchaseProgressItem item, Set<Integer> changedItemIds)
+	{
+		final int oldPrice = item.getGePrice();
+		final int price = priceProvider.getPrice(item.getItemId());
+		refreshScheduler.refreshed(item.getItemId(), oldPrice, price);
+
+		final int oldTrend = priceHistory.getTrend(item.getItemId());
+		priceHistory.record(item.getItemId(), price);
+
+		if (price != oldPrice || priceHistory.getTrend(item.getItemId()) != oldTrend)
+		{
+			item.setGePrice(price);
+			changedItemIds.add(item.getItemId());
+
+			// Only the groups on the item's path are touched
+			final int groupIndex = goalIndex.getGroup(item.getItemId());
+			if (groupIndex >= 0)
 			{
-				groupItems.set(itemIndex, groupItems.get(itemIndex - 1));
-				groupItems.set(itemIndex -1, shiftedItem);
+				groups.get(groupIndex).adjustTotals(price - oldPrice, 0);
 			}
-			else
+		}
+	}
+
+	public void restoreSnapshots(List<ContainerSnapshot> snapshots)
+	{
+		for (ContainerSnapshot snapshot : snapshots)
+		{
+			valuationWorker.submit(snapshot);
+		}
+	}
+
+	private void saveValue()
+	{
+		dataManager.saveValue();
+		dataManager.saveSnapshots(valuationWorker.getLastSnapshots());
+
+		if (wealthTracker.isDirty())
+		{
+			dataManager.saveWealth();
+		}
+	}
+
+	private void snapshotContainers()
+	{
+		for (ContainerType type : ContainerType.values())
+		{
+			if (bankCalculation.isIncluded(type))
 			{
-				groupItems.set(itemIndex, groupItems.get(itemIndex + 1));
-				groupItems.set(itemIndex +1, shiftedItem);
+				valuationWorker.submit(bankCalculation.snapshot(type));
 			}
+		}
+	}
 
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
-		});
+	private void publishValue(long newValue)
+	{
+		// Called from the valuation worker, the write itself is deferred to a quiet game tick
+		if (newValue == value)
+		{
+			return;
+		}
+
+		value = newValue;
+		wealthTracker.record(newValue);
+		bankEventCoalescer.valueChanged();
+		SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
 	}
 
-	private boolean containsItem(PurchaseProgressItem newItem)
+	private static boolean isNestedIn(PurchaseProgressGroup group, String name)
 	{
-		for (PurchaseProgressGroup group : groups)
+		for (PurchaseProgressGroup ancestor = group.getParent(); ancestor != null; ancestor = ancestor.getParent())
 		{
-			if (group.getItems().contains(newItem))
+			if (ancestor.getName().equals(name))
 			{
 				return true;
 			}
 		}
-		return items.contains(newItem);
+		return false;
+	}
+
+	private static boolean canShift(List<?> list, int index, boolean shiftUp)
+	{
+		final int target = shiftUp ? index - 1 : index + 1;
+		return index >= 0 && target >= 0 && index < list.size() && target < list.size();
+	}
+
+	void publishSnapshot()
+	{
+		snapshot = GoalSnapshot.of(items, groups);
+	}
+
+	// Panels hand back groups from a snapshot, changes are made to the live group of the same name
+	private PurchaseProgressGroup findGroup(PurchaseProgressGroup shownGroup)
+	{
+		final int index = goalIndex.getGroupIndex(shownGroup.getName());
+		return index == -1 ? null : groups.get(index);
+	}
+
+	// Live goal item with the given id, null when it isn't a goal
+	private PurchaseProgressItem findItem(int itemId)
+	{
+		final int group = goalIndex.getGroup(itemId);
+		if (group == GoalIndex.MISSING)
+		{
+			return null;
+		}
+
+		final List<PurchaseProgressItem> list = group == GoalIndex.UNGROUPED ? items : groups.get(group).getItems();
+		return list.get(goalIndex.getPosition(itemId));
+	}
+
+	// Runs again on every client thread pass until every loaded goal has its name and icon
+	private boolean hydrateItems()
+	{
+		final Set<Integer> hydrated = itemHydrator.hydrate(this::findItem);
+		if (!hydrated.isEmpty())
+		{
+			// Rows read names from the snapshot, so it is published again with the filled in items
+			publishSnapshot();
+			SwingUtilities.invokeLater(() -> panel.updateItems(hydrated));
+		}
+		return itemHydrator.isEmpty();
+	}
+
+	// Fills in every goal still waiting on its name and icon, then calls back on the EDT
+	public void hydrateGoals(Runnable onHydrated)
+	{
+		clientThread.invokeLater(() ->
+		{
+			final Set<Integer> hydrated = itemHydrator.hydrateAll(items);
+			if (!hydrated.isEmpty())
+			{
+				publishSnapshot();
+			}
+
+			SwingUtilities.invokeLater(() ->
+			{
+				if (!hydrated.isEmpty())
+				{
+					panel.updateItems(hydrated);
+				}
+				onHydrated.run();
+			});
+		});
 	}
 
 	@Override
@@ -385,15 +953,53 @@ public class PurchaseProgressPlugin extends Plugin
 
 		clientToolbar.addNavigation(navButton);
 
-		this.dataManager = new PurchaseProgressDataManager(this, client, configManager, itemManager, gson);
+		this.dataManager = new PurchaseProgressDataManager(this, client, clientThread, configManager, itemManager, executor, config);
+		this.valuationWorker = new BankValuationWorker(bankCalculation, this::publishValue);
+		this.bankEventCoalescer = new BankEventCoalescer();
+
+		// Sources that fetch in the background report back once their prices are in
+		priceProvider.setListener(this::repriceContainers);
+
+		clientThread.invokeLater(() ->
+		{
+			if (!dataManager.loadData())
+			{
+				return false;
+			}
+
+			PurchaseProgressGroup.recalculateTotals(groups);
+			goalIndex.rebuild(items, groups);
+			publishSnapshot();
 
-		clientThread.invokeLater(() -> dataManager.loadData());
+			// Refreshes read the goals from the snapshot, so the first one waits until the loaded goals are published
+			updateItemPrices();
+
+			// Price refreshes only patch changed rows, so the loaded goals are laid out once here
+			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
+			clientThread.invokeLater(this::hydrateItems);
+			return true;
+		});
 	}
 
 	@Override
 	protected void shutDown() throws Exception
 	{
 		clientToolbar.removeNavigation(navButton);
+		priceProvider.setListener(() -> {});
+		valuationWorker.shutDown();
+
+		if (bankEventCoalescer.flushSave())
+		{
+			saveValue();
+		}
+
+		if (priceHistory.isDirty())
+		{
+			dataManager.saveHistory();
+		}
+		// Goal edits still waiting on their debounce are written before the plugin goes away
+		dataManager.shutDown();
+		bankEventCoalescer.logStats();
 	}
 
 	@Provides
@@ -407,9 +1013,84 @@ public class PurchaseProgressPlugin extends Plugin
 	{
 		if (event.getScriptId() == ScriptID.BANKMAIN_BUILD)
 		{
-			value = bankCalculation.calculateValue();
-			dataManager.saveData();
-			SwingUtilities.invokeLater(() -> panel.updateProgressPanels());
+			bankEventCoalescer.containerChanged(ContainerType.BANK);
+		}
+	}
+
+	@Subscribe
+	public void onItemContainerChanged(ItemContainerChanged event)
+	{
+		final ContainerType type = ContainerType.fromContainerId(event.getContainerId());
+		if (type == null)
+		{
+			return;
+		}
+
+		// Inventory is always tracked so gold spent or received shows up without a bank visit
+		if (bankCalculation.isIncluded(type))
+		{
+			bankEventCoalescer.containerChanged(type);
+		}
+	}
+
+	@Subscribe
+	public void onGrandExchangeOfferChanged(GrandExchangeOfferChanged event)
+	{
+		if (config.includeGrandExchange())
+		{
+			bankEventCoalescer.containerChanged(ContainerType.GRAND_EXCHANGE);
+		}
+	}
+
+	@Subscribe
+	public void onGameTick(GameTick event)
+	{
+		final int pending = bankEventCoalescer.pollValuation();
+		if (pending != 0)
+		{
+			for (ContainerType type : ContainerType.values())
+			{
+				if ((pending & 1 << type.ordinal()) != 0)
+				{
+					valuationWorker.submit(bankCalculation.snapshot(type));
+				}
+			}
+		}
+
+		if (bankEventCoalescer.pollSave())
+		{
+			saveValue();
+		}
+	}
+
+	@Subscribe
+	public void onConfigChanged(ConfigChanged event)
+	{
+		if (!event.getGroup().equals(CONFIG_GROUP))
+		{
+			return;
+		}
+
+		switch (event.getKey())
+		{
+			case "bankTab":
+			case "includeBankTab":
+				// Every tab is already valued, so switching tabs only swaps the cached total
+				valuationWorker.revalue();
+				break;
+			case "includeInventory":
+			case "includeEquipment":
+			case "includeLootingBag":
+			case "includeGrandExchange":
+				clientThread.invokeLater(this::snapshotContainers);
+				break;
+			case "persistenceMode":
+				clientThread.invokeLater(dataManager::persistenceModeChanged);
+				break;
+			case "priceSource":
+			case "realTimePriceUrl":
+				clientThread.invokeLater(() -> refreshPrices(true));
+				break;
 		}
 	}
 }
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress;
+
+import javax.inject.Singleton;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// Samples of the tracked value over time and a running income rate fitted to them
+@Singleton
+public class WealthTracker
+{
+    // Samples at most an hour apart, two weeks worth
+    private static final int CAPACITY = 336;
+    private static final int SPACING = 60;
+
+    // Older samples count less, a sample a week old weighs about a third of a new one
+    private static final double DECAY_HOURS = TimeUnit.DAYS.toHours(7);
+
+    private static final int MIN_SAMPLES = 3;
+    private static final int MAX_TIME_DELTA = 0xFFFF;
+    private static final int VERSION = 1;
+
+    private final int[] times = new int[CAPACITY];
+    private final long[] values = new long[CAPACITY];
+    private int head;
+    private int size;
+    private boolean dirty;
+
+    // Weighted least squares sums, times are hours relative to the latest sample
+    private int samples;
+    private double sumWeight;
+    private double sumTime;
+    private double sumValue;
+    private double sumTimeTime;
+    private double sumTimeValue;
+
+    public synchronized void record(long value)
+    {
+        record(now(), value);
+        dirty = true;
+    }
+
+    // Gold per hour fitted to the samples, 0 when there aren't enough to tell
+    public synchronized double getIncomeRate()
+    {
+        final double denominator = sumWeight * sumTimeTime - sumTime * sumTime;
+        if (samples < MIN_SAMPLES || denominator <= 0)
+        {
+            return 0;
+        }
+
+        return (sumWeight * sumTimeValue - sumTime * sumValue) / denominator;
+    }
+
+    // Estimated time to save up the remaining gold, null when it isn't being earned
+    public String getEtaText(long value, long cost)
+    {
+        if (value >= cost)
+        {
+            return null;
+        }
+
+        final double rate = getIncomeRate();
+        if (rate <= 0)
+        {
+            return null;
+        }
+
+        final long minutes = (long) Math.ceil((cost - value) / rate * 60);
+        final long days = TimeUnit.MINUTES.toDays(minutes);
+        final long hours = TimeUnit.MINUTES.toHours(minutes) % 24;
+
+        if (days > 0)
+        {
+            return "Affordable in about " + days + "d " + hours + "h";
+        }
+        if (hours > 0)
+        {
+            return "Affordable in about " + hours + "h " + minutes % 60 + "m";
+        }
+        return "Affordable in about " + minutes + "m";
+    }
+
+    public synchronized boolean isDirty()
+    {
+        return dirty;
+    }
+
+    public synchronized void write(DataOutputStream out) throws IOException
+    {
+        out.writeByte(VERSION);
+        out.writeShort(size);
+
+        int previous = 0;
+        for (int i = 0; i < size; i++)
+        {
+            final int index = (head + i) % CAPACITY;
+            if (i == 0)
+            {
+                previous = times[index];
+                out.writeInt(previous);
+            }
+            else
+            {
+                final int delta = Math.min(times[index] - previous, MAX_TIME_DELTA);
+                out.writeShort(delta);
+                previous += delta;
+            }
+            out.writeLong(values[index]);
+        }
+        dirty = false;
+    }
+
+    // The fit isn't stored, it is rebuilt from the samples
+    public synchronized void read(DataInputStream in) throws IOException
+    {
+        if (in.readUnsignedByte() != VERSION)
+        {
+            return;
+        }
+
+        head = 0;
+        size = 0;
+        samples = 0;
+        sumWeight = sumTime = sumValue = sumTimeTime = sumTimeValue = 0;
+
+        final int total = in.readUnsignedShort();
+        int time = 0;
+        for (int i = 0; i < total; i++)
+        {
+            time = i == 0 ? in.readInt() : time + in.readUnsignedShort();
+            record(time, in.readLong());
+        }
+        dirty = false;
+    }
+
+    private void record(int time, long value)
+    {
+        // Changes inside the spacing only move the latest value, the fit follows so a reload refits the same line
+        if (size > 0)
+        {
+            final int latest = (head + size - 1) % CAPACITY;
+            if (time - times[latest] < SPACING)
+            {
+                // The latest sample sits at time 0 with weight 1, only the value sum holds it
+                sumValue += value - values[latest];
+                values[latest] = value;
+                return;
+            }
+        }
+
+        final int elapsed = size > 0 ? time - times[(head + size - 1) % CAPACITY] : 0;
+        fit(elapsed / 60.0, value);
+
+        times[(head + size) % CAPACITY] = time;
+        values[(head + size) % CAPACITY] = value;
+        if (size == CAPACITY)
+        {
+            head = (head + 1) % CAPACITY;
+        }
+        else
+        {
+            size++;
+        }
+    }
+
+    // Moves the sums to the new sample's time, decays them and adds the sample, constant time per sample
+    private void fit(double elapsedHours, double value)
+    {
+        final double d = elapsedHours;
+        sumTimeTime = sumTimeTime - 2 * d * sumTime + d * d * sumWeight;
+        sumTimeValue = sumTimeValue - d * sumValue;
+        sumTime = sumTime - d * sumWeight;
+
+        final double decay = Math.exp(-elapsedHours / DECAY_HOURS);
+        sumWeight *= decay;
+        sumTime *= decay;
+        sumValue *= decay;
+        sumTimeTime *= decay;
+        sumTimeValue *= decay;
+
+        sumWeight += 1;
+        sumValue += value;
+        samples++;
+    }
+
+    // Minutes since the epoch
+    private static int now()
+    {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+}
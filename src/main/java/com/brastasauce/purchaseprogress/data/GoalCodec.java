@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.data;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+
+// Compact encoding of the goal config values, written from and read into the model directly. Ids are zigzag varint
+// deltas from the previous id and names are length prefixed UTF-8, all behind a version byte and wrapped in base64.
+// Each group also stores the position of its parent, plus one so zero is the top level.
+final class GoalCodec
+{
+    private static final int VERSION = 1;
+
+    private GoalCodec()
+    {
+    }
+
+    // Values written before this encoding are Gson JSON arrays
+    static boolean isLegacy(String value)
+    {
+        return value.startsWith("[");
+    }
+
+    static String encodeItems(List<PurchaseProgressItem> items)
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(items.size() * 2 + 2);
+        out.write(VERSION);
+        writeItems(out, items);
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    static List<PurchaseProgressItem> decodeItems(String value, IntFunction<PurchaseProgressItem> itemFactory) throws IOException
+    {
+        final Reader in = open(value);
+        final List<PurchaseProgressItem> items = readItems(in, itemFactory);
+        in.end();
+        return items;
+    }
+
+    static String encodeGroups(List<PurchaseProgressGroup> groups)
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+        out.write(VERSION);
+        writeVarint(out, groups.size());
+
+        final Map<PurchaseProgressGroup, Integer> positions = new IdentityHashMap<>(groups.size() * 2);
+        for (int i = 0; i < groups.size(); i++)
+        {
+            positions.put(groups.get(i), i);
+        }
+
+        for (PurchaseProgressGroup group : groups)
+        {
+            final byte[] name = group.getName().getBytes(StandardCharsets.UTF_8);
+            writeVarint(out, name.length);
+            out.write(name, 0, name.length);
+            out.write(group.isCollapsed() ? 1 : 0);
+            writeVarint(out, group.getParent() == null ? 0 : positions.get(group.getParent()) + 1);
+            writeItems(out, group.getItems());
+        }
+
+        return Base64.getEncoder().encodeToString(out.toByteArray());
+    }
+
+    static List<PurchaseProgressGroup> decodeGroups(String value, IntFunction<PurchaseProgressItem> itemFactory) throws IOException
+    {
+        final Reader in = open(value);
+        final int count = in.readVarint();
+        // Every group takes at least a few bytes, so a bad count runs out of data before it outgrows these
+        final List<PurchaseProgressGroup> groups = new ArrayList<>(Math.min(count, in.remaining()));
+        final int[] parents = new int[Math.min(count, in.remaining())];
+
+        for (int i = 0; i < count; i++)
+        {
+            final String name = in.readString();
+            final boolean collapsed = in.readByte() != 0;
+            final int parent = in.readVarint();
+            if (parent > count)
+            {
+                throw new IOException("Group parent out of range");
+            }
+
+            groups.add(new PurchaseProgressGroup(name, collapsed, readItems(in, itemFactory)));
+            parents[i] = parent;
+        }
+
+        in.end();
+
+        // Parents can come later in the list, so they are linked once every group is read
+        for (int i = 0; i < count; i++)
+        {
+            if (parents[i] != 0)
+            {
+                groups.get(i).linkParent(groups.get(parents[i] - 1));
+            }
+        }
+        return groups;
+    }
+
+    private static Reader open(String value) throws IOException
+    {
+        final Reader in;
+        try
+        {
+            in = new Reader(Base64.getDecoder().decode(value));
+        }
+        catch (IllegalArgumentException e)
+        {
+            throw new IOException("Goal data is not base64", e);
+        }
+
+        final int version = in.readByte();
+        if (version != VERSION)
+        {
+            throw new IOException("Unknown goal data version " + version);
+        }
+        return in;
+    }
+
+    private static void writeItems(ByteArrayOutputStream out, List<PurchaseProgressItem> items)
+    {
+        writeVarint(out, items.size());
+
+        int previous = 0;
+        for (PurchaseProgressItem item : items)
+        {
+            final int itemId = item.getItemId();
+            final int delta = itemId - previous;
+            writeVarint(out, (delta << 1) ^ (delta >> 31));
+            previous = itemId;
+        }
+    }
+
+    private static List<PurchaseProgressItem> readItems(Reader in, IntFunction<PurchaseProgressItem> itemFactory) throws IOException
+    {
+        final int size = in.readVarint();
+        final List<PurchaseProgressItem> items = new ArrayList<>(Math.min(size, in.remaining()));
+
+        int previous = 0;
+        for (int i = 0; i < size; i++)
+        {
+            final int zigzag = in.readVarint();
+            previous += (zigzag >>> 1) ^ -(zigzag & 1);
+            items.add(itemFactory.apply(previous));
+        }
+        return items;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value)
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static class Reader
+    {
+        private final byte[] bytes;
+        private int position;
+
+        private Reader(byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        private int readByte() throws IOException
+        {
+            if (position == bytes.length)
+            {
+                throw new IOException("Goal data ends early");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private int readVarint() throws IOException
+        {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7)
+            {
+                final int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0)
+                {
+                    return value;
+                }
+            }
+            throw new IOException("Malformed varint in goal data");
+        }
+
+        private int remaining()
+        {
+            return bytes.length - position;
+        }
+
+        private String readString() throws IOException
+        {
+            final int length = readVarint();
+            if (length < 0 || length > bytes.length - position)
+            {
+                throw new IOException("Goal data ends early");
+            }
+
+            final String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void end() throws IOException
+        {
+            if (position != bytes.length)
+            {
+                throw new IOException("Unexpected trailing goal data");
+            }
+        }
+    }
+}
@@ -0,0 +1,650 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.data;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+
+// Goal edits appended as small records to a local file, folded back into a single snapshot once enough pile up
+@Slf4j
+class GoalJournal
+{
+    private static final int MAGIC = 0x50504a31;
+    private static final int COMPACT_THRESHOLD = 256;
+
+    private static final int SNAPSHOT = 0;
+    private static final int VALUE = 1;
+    private static final int ITEM_ADD = 2;
+    private static final int ITEM_REMOVE = 3;
+    private static final int ITEM_MOVE = 4;
+    private static final int ITEMS_SET = 5;
+    private static final int GROUP_ADD = 6;
+    private static final int GROUP_REMOVE = 7;
+    private static final int GROUP_UPDATE = 8;
+    private static final int GROUP_MOVE = 9;
+    private static final int GROUP_NEST = 10;
+
+    // Group index used for the individual item list
+    static final int NO_GROUP = -1;
+
+    private interface RecordWriter
+    {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    static class State
+    {
+        long value;
+        List<Integer> itemIds = new ArrayList<>();
+        List<PurchaseProgressGroupData> groups = new ArrayList<>();
+    }
+
+    private final File file;
+    private final ScheduledExecutorService executor;
+
+    private DataOutputStream out;
+    private int operations;
+
+    // Records appended while a compaction runs, carried over into the compacted file
+    private final List<byte[]> pending = new ArrayList<>();
+    private boolean compacting;
+
+    GoalJournal(File file, ScheduledExecutorService executor)
+    {
+        this.file = file;
+        this.executor = executor;
+    }
+
+    synchronized boolean exists()
+    {
+        return file.exists() || compacting;
+    }
+
+    synchronized boolean needsCompaction()
+    {
+        return operations >= COMPACT_THRESHOLD && !compacting;
+    }
+
+    // Replays the snapshot and every record after it, null when there is no journal yet
+    synchronized State read() throws IOException
+    {
+        if (!file.exists())
+        {
+            return null;
+        }
+
+        final State state = new State();
+        operations = 0;
+
+        final byte[] bytes = Files.readAllBytes(file.toPath());
+        final ByteArrayInputStream buffer = new ByteArrayInputStream(bytes);
+        final DataInputStream in = new DataInputStream(buffer);
+
+        if (bytes.length < 4 || in.readInt() != MAGIC)
+        {
+            throw new IOException("Not a purchase progress journal");
+        }
+
+        // End of the last complete record, a crash can leave a partial one after it
+        int complete = bytes.length - buffer.available();
+        try
+        {
+            while (true)
+            {
+                final int type = in.read();
+                if (type == -1)
+                {
+                    break;
+                }
+
+                apply(state, type, in);
+                operations++;
+                complete = bytes.length - buffer.available();
+            }
+        }
+        catch (EOFException e)
+        {
+            // Cut off so the next append doesn't land after the partial bytes, the untruncated file is kept in case it wasn't a crash
+            final File bad = badFile();
+            log.warn("Purchase progress journal ends in a partial record, truncating it to {} bytes and keeping a copy as {}", complete, bad);
+            Files.copy(file.toPath(), bad.toPath());
+            try (RandomAccessFile truncated = new RandomAccessFile(file, "rw"))
+            {
+                truncated.setLength(complete);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            // A bad index in a record, the journal can't be trusted past it
+            throw new IOException("Invalid purchase progress journal record", e);
+        }
+
+        return state;
+    }
+
+    // Moves an unreadable journal aside so it is never compacted over, returns where it went
+    synchronized File quarantine() throws IOException
+    {
+        close();
+
+        final File bad = badFile();
+        Files.move(file.toPath(), bad.toPath());
+        return bad;
+    }
+
+    private File badFile()
+    {
+        final File bad = new File(file.getParentFile(), file.getName() + ".bad");
+        return bad.exists() ? new File(file.getParentFile(), file.getName() + ".bad." + System.currentTimeMillis()) : bad;
+    }
+
+    // Whole goal state, replaces everything before it on replay
+    synchronized void snapshot(State state)
+    {
+        try
+        {
+            write(encodeState(state));
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while appending to purchase progress journal", e);
+        }
+    }
+
+    void value(long value)
+    {
+        append(VALUE, out -> out.writeLong(value));
+    }
+
+    void itemAdded(int group, int itemId)
+    {
+        append(ITEM_ADD, out ->
+        {
+            writeIndex(out, group);
+            out.writeInt(itemId);
+        });
+    }
+
+    void itemRemoved(int group, int index)
+    {
+        append(ITEM_REMOVE, out ->
+        {
+            writeIndex(out, group);
+            writeIndex(out, index);
+        });
+    }
+
+    // A target index of -1 appends to the end of the target list
+    void itemMoved(int fromGroup, int fromIndex, int toGroup, int toIndex)
+    {
+        append(ITEM_MOVE, out ->
+        {
+            writeIndex(out, fromGroup);
+            writeIndex(out, fromIndex);
+            writeIndex(out, toGroup);
+            writeIndex(out, toIndex);
+        });
+    }
+
+    void itemsSet(List<Integer> itemIds)
+    {
+        append(ITEMS_SET, out -> writeIds(out, itemIds));
+    }
+
+    void groupAdded(String name)
+    {
+        append(GROUP_ADD, out -> out.writeUTF(name));
+    }
+
+    void groupRemoved(int group, boolean keepItems)
+    {
+        append(GROUP_REMOVE, out ->
+        {
+            writeIndex(out, group);
+            out.writeBoolean(keepItems);
+        });
+    }
+
+    void groupUpdated(int group, String name, boolean collapsed)
+    {
+        append(GROUP_UPDATE, out ->
+        {
+            writeIndex(out, group);
+            out.writeUTF(name);
+            out.writeBoolean(collapsed);
+        });
+    }
+
+    void groupMoved(int from, int to)
+    {
+        append(GROUP_MOVE, out ->
+        {
+            writeIndex(out, from);
+            writeIndex(out, to);
+        });
+    }
+
+    // A parent of NO_GROUP moves the group back to the top level
+    void groupNested(int group, int parent)
+    {
+        append(GROUP_NEST, out ->
+        {
+            writeIndex(out, group);
+            writeIndex(out, parent);
+        });
+    }
+
+    // Writes the state as a fresh journal in the background, records appended meanwhile are carried over
+    synchronized void compact(State state)
+    {
+        if (compacting)
+        {
+            return;
+        }
+        compacting = true;
+
+        final byte[] snapshot;
+        try
+        {
+            snapshot = encodeState(state);
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while compacting purchase progress journal", e);
+            compacting = false;
+            return;
+        }
+
+        executor.execute(() -> writeCompacted(snapshot));
+    }
+
+    synchronized void close()
+    {
+        if (out == null)
+        {
+            return;
+        }
+
+        try
+        {
+            out.close();
+        }
+        catch (IOException e)
+        {
+            log.warn("Exception occurred while closing purchase progress journal", e);
+        }
+        out = null;
+    }
+
+    private void writeCompacted(byte[] snapshot)
+    {
+        final File compacted = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try
+        {
+            file.getParentFile().mkdirs();
+            try (DataOutputStream compactedOut = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(compacted))))
+            {
+                compactedOut.writeInt(MAGIC);
+                compactedOut.write(snapshot);
+            }
+
+            synchronized (this)
+            {
+                // Anything appended since the snapshot was taken goes after it
+                try (FileOutputStream tail = new FileOutputStream(compacted, true))
+                {
+                    for (byte[] record : pending)
+                    {
+                        tail.write(record);
+                    }
+                }
+
+                close();
+                Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                operations = pending.size();
+                pending.clear();
+                compacting = false;
+            }
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while compacting purchase progress journal", e);
+            synchronized (this)
+            {
+                pending.clear();
+                compacting = false;
+            }
+        }
+    }
+
+    private synchronized void append(int type, RecordWriter writer)
+    {
+        try
+        {
+            write(encode(type, writer));
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while appending to purchase progress journal", e);
+        }
+    }
+
+    private synchronized void write(byte[] record) throws IOException
+    {
+        if (compacting)
+        {
+            pending.add(record);
+            if (!file.exists())
+            {
+                return;
+            }
+        }
+
+        if (out == null)
+        {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        }
+
+        out.write(record);
+        out.flush();
+        operations++;
+    }
+
+    // The snapshot record followed by one nest record per nested group, written out together
+    private static byte[] encodeState(State state) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        bytes.write(encode(SNAPSHOT, out -> writeState(out, state)));
+
+        final Map<String, Integer> positions = new HashMap<>();
+        for (int i = 0; i < state.groups.size(); i++)
+        {
+            positions.put(state.groups.get(i).getName(), i);
+        }
+
+        for (int i = 0; i < state.groups.size(); i++)
+        {
+            final Integer parent = positions.get(state.groups.get(i).getParent());
+            if (parent != null)
+            {
+                final int group = i;
+                bytes.write(encode(GROUP_NEST, out ->
+                {
+                    writeIndex(out, group);
+                    writeIndex(out, parent);
+                }));
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] encode(int type, RecordWriter writer) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(type);
+            writer.write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void apply(State state, int type, DataInputStream in) throws IOException
+    {
+        switch (type)
+        {
+            case SNAPSHOT:
+            {
+                final State snapshot = readState(in);
+                state.value = snapshot.value;
+                state.itemIds = snapshot.itemIds;
+                state.groups = snapshot.groups;
+                break;
+            }
+            case VALUE:
+                state.value = in.readLong();
+                break;
+            case ITEM_ADD:
+            {
+                // Every field is read before the state is touched, so a partial record ends in EOF rather than a bad index
+                final int group = readIndex(in);
+                final int itemId = in.readInt();
+                getItems(state, group).add(itemId);
+                break;
+            }
+            case ITEM_REMOVE:
+            {
+                final int group = readIndex(in);
+                final int index = readIndex(in);
+                getItems(state, group).remove(index);
+                break;
+            }
+            case ITEM_MOVE:
+            {
+                final int fromGroup = readIndex(in);
+                final int fromIndex = readIndex(in);
+                final int toGroup = readIndex(in);
+                final int toIndex = readIndex(in);
+
+                final Integer itemId = getItems(state, fromGroup).remove(fromIndex);
+                final List<Integer> to = getItems(state, toGroup);
+                to.add(toIndex == -1 ? to.size() : toIndex, itemId);
+                break;
+            }
+            case ITEMS_SET:
+                state.itemIds = readIds(in);
+                break;
+            case GROUP_ADD:
+                state.groups.add(new PurchaseProgressGroupData(in.readUTF(), false, new ArrayList<>()));
+                break;
+            case GROUP_REMOVE:
+            {
+                final int index = readIndex(in);
+                final boolean keepItems = in.readBoolean();
+                final PurchaseProgressGroupData group = state.groups.remove(index);
+                if (keepItems)
+                {
+                    state.itemIds.addAll(group.getItems());
+                }
+
+                // Groups nested in the removed one move up to its parent
+                for (PurchaseProgressGroupData child : state.groups)
+                {
+                    if (group.getName().equals(child.getParent()))
+                    {
+                        child.setParent(group.getParent());
+                    }
+                }
+                break;
+            }
+            case GROUP_UPDATE:
+            {
+                final int index = readIndex(in);
+                final String name = in.readUTF();
+                final boolean collapsed = in.readBoolean();
+
+                final PurchaseProgressGroupData old = state.groups.get(index);
+                final PurchaseProgressGroupData group = new PurchaseProgressGroupData(name, collapsed, old.getItems());
+                group.setParent(old.getParent());
+                state.groups.set(index, group);
+
+                for (PurchaseProgressGroupData child : state.groups)
+                {
+                    if (old.getName().equals(child.getParent()))
+                    {
+                        child.setParent(name);
+                    }
+                }
+                break;
+            }
+            case GROUP_MOVE:
+            {
+                final int from = readIndex(in);
+                final int to = readIndex(in);
+                state.groups.add(to, state.groups.remove(from));
+                break;
+            }
+            case GROUP_NEST:
+            {
+                final int group = readIndex(in);
+                final int parent = readIndex(in);
+                state.groups.get(group).setParent(parent == NO_GROUP ? null : state.groups.get(parent).getName());
+                break;
+            }
+            default:
+                throw new IOException("Unknown purchase progress journal record " + type);
+        }
+    }
+
+    private static List<Integer> getItems(State state, int group)
+    {
+        return group == NO_GROUP ? state.itemIds : state.groups.get(group).getItems();
+    }
+
+    private static void writeState(DataOutputStream out, State state) throws IOException
+    {
+        out.writeLong(state.value);
+        writeIds(out, state.itemIds);
+
+        writeSize(out, state.groups.size());
+        for (PurchaseProgressGroupData group : state.groups)
+        {
+            out.writeUTF(group.getName());
+            out.writeBoolean(group.isCollapsed());
+            writeIds(out, group.getItems());
+        }
+    }
+
+    private static State readState(DataInputStream in) throws IOException
+    {
+        final State state = new State();
+        state.value = in.readLong();
+        state.itemIds = readIds(in);
+
+        final int groups = readSize(in);
+        for (int i = 0; i < groups; i++)
+        {
+            final String name = in.readUTF();
+            final boolean collapsed = in.readBoolean();
+            state.groups.add(new PurchaseProgressGroupData(name, collapsed, readIds(in)));
+        }
+        return state;
+    }
+
+    private static void writeIds(DataOutputStream out, List<Integer> itemIds) throws IOException
+    {
+        writeSize(out, itemIds.size());
+        for (int itemId : itemIds)
+        {
+            out.writeInt(itemId);
+        }
+    }
+
+    private static List<Integer> readIds(DataInputStream in) throws IOException
+    {
+        final int size = readSize(in);
+        final List<Integer> itemIds = new ArrayList<>(Math.min(size, 1024));
+        for (int i = 0; i < size; i++)
+        {
+            itemIds.add(in.readInt());
+        }
+        return itemIds;
+    }
+
+    // Indexes are stored one higher so NO_GROUP and an append target of -1 fit an unsigned varint
+    private static void writeIndex(DataOutputStream out, int index) throws IOException
+    {
+        writeVarint(out, index + 1);
+    }
+
+    private static int readIndex(DataInputStream in) throws IOException
+    {
+        final int value = readVarint(in);
+        if (value < 0)
+        {
+            throw new IOException("Index out of range in purchase progress journal");
+        }
+        return value - 1;
+    }
+
+    private static void writeSize(DataOutputStream out, int size) throws IOException
+    {
+        writeVarint(out, size);
+    }
+
+    private static int readSize(DataInputStream in) throws IOException
+    {
+        final int size = readVarint(in);
+        if (size < 0)
+        {
+            throw new IOException("Size out of range in purchase progress journal");
+        }
+        return size;
+    }
+
+    private static void writeVarint(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    // Ends in EOF like any other field when the record was cut off
+    private static int readVarint(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7)
+        {
+            final int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in purchase progress journal");
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.data;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only copy of the goals, republished after every change so other threads never see them mid-edit.
+// Items and groups are frozen copies, an unchanged item keeps the same copy from one snapshot to the next.
+public final class GoalSnapshot
+{
+    public static final GoalSnapshot EMPTY = new GoalSnapshot(Collections.emptyList(), Collections.emptyList());
+
+    @Getter
+    private final List<PurchaseProgressItem> items;
+
+    // Changes go through the plugin, which finds the live group by name
+    @Getter
+    private final List<PurchaseProgressGroup> groups;
+
+    private GoalSnapshot(List<PurchaseProgressItem> items, List<PurchaseProgressGroup> groups)
+    {
+        this.items = items;
+        this.groups = groups;
+    }
+
+    public static GoalSnapshot of(List<PurchaseProgressItem> items, List<PurchaseProgressGroup> groups)
+    {
+        return new GoalSnapshot(Collections.unmodifiableList(copyItems(items, true)), Collections.unmodifiableList(copyGroups(groups, true)));
+    }
+
+    // Editable copies of the snapshot's items and groups, for putting the live goals back
+    public List<PurchaseProgressItem> copyItems()
+    {
+        return copyItems(items, false);
+    }
+
+    public List<PurchaseProgressGroup> copyGroups()
+    {
+        return copyGroups(groups, false);
+    }
+
+    private static List<PurchaseProgressItem> copyItems(List<PurchaseProgressItem> items, boolean frozen)
+    {
+        final List<PurchaseProgressItem> copies = new ArrayList<>(items.size());
+        for (PurchaseProgressItem item : items)
+        {
+            copies.add(frozen ? item.frozenCopy() : item.editableCopy());
+        }
+        return copies;
+    }
+
+    // Copies keep their totals and are nested in each other the same way as the originals
+    private static List<PurchaseProgressGroup> copyGroups(List<PurchaseProgressGroup> groups, boolean frozen)
+    {
+        final Map<PurchaseProgressGroup, PurchaseProgressGroup> copies = new IdentityHashMap<>(groups.size() * 2);
+        final List<PurchaseProgressGroup> groupCopies = new ArrayList<>(groups.size());
+        for (PurchaseProgressGroup group : groups)
+        {
+            final List<PurchaseProgressItem> groupItems = copyItems(group.getItems(), frozen);
+            final PurchaseProgressGroup copy = new PurchaseProgressGroup(group.getName(), group.isCollapsed(), frozen ? Collections.unmodifiableList(groupItems) : groupItems);
+            copy.copyTotals(group);
+            copies.put(group, copy);
+            groupCopies.add(copy);
+        }
+
+        for (PurchaseProgressGroup group : groups)
+        {
+            copies.get(group).linkParent(copies.get(group.getParent()));
+        }
+
+        if (frozen)
+        {
+            for (PurchaseProgressGroup copy : groupCopies)
+            {
+                copy.freeze();
+            }
+        }
+
+        return groupCopies;
+    }
+}
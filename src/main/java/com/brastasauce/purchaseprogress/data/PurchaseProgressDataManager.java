@@ -24,50 +24,99 @@
  */
 package com.brastasauce.purchaseprogress.data;
 
+import com.brastasauce.purchaseprogress.ContainerSnapshot;
+import com.brastasauce.purchaseprogress.ContainerType;
+import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
 import com.brastasauce.purchaseprogress.PurchaseProgressPlugin;
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.GameState;
+import net.runelite.client.RuneLite;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.config.ConfigProfile;
 import net.runelite.client.game.ItemManager;
-import net.runelite.client.util.AsyncBufferedImage;
 
 import javax.inject.Inject;
-import java.lang.reflect.Type;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import static com.brastasauce.purchaseprogress.PurchaseProgressPlugin.CONFIG_GROUP;
 
 @Slf4j
 public class PurchaseProgressDataManager
 {
+    // Sections that can be marked dirty, each is written to its own config key
+    public static final int VALUE = 1;
+    public static final int ITEM_IDS = 1 << 1;
+    public static final int GROUPS = 1 << 2;
+
+    // Edits are written once they have been quiet this long, or after the max delay under constant editing
+    private static final long FLUSH_DELAY = TimeUnit.SECONDS.toMillis(2);
+    private static final long MAX_FLUSH_DELAY = TimeUnit.SECONDS.toMillis(10);
+
+    private static final File JOURNAL_DIR = new File(RuneLite.RUNELITE_DIR, "purchase-progress");
+
     private static final String CONFIG_KEY_VALUE = "value";
     private static final String CONFIG_KEY_ITEMIDS = "itemIds";
     private static final String CONFIG_KEY_GROUPS = "groups";
+    private static final String CONFIG_KEY_CONTAINERS = "containers";
+    private static final String CONFIG_KEY_PRICE_HISTORY = "priceHistory";
+    private static final String CONFIG_KEY_WEALTH = "wealth";
 
     private final PurchaseProgressPlugin plugin;
     private final Client client;
+    private final ClientThread clientThread;
     private final ConfigManager configManager;
     private final ItemManager itemManager;
-    private final Gson gson;
+    private final ScheduledExecutorService executor;
+    private final PurchaseProgressConfig config;
+    private final GoalJournal journal;
+    private boolean journalUnusable;
 
-    private List<Integer> itemIds = new ArrayList<>();
-    private final Type itemsType = new TypeToken<ArrayList<Integer>>(){}.getType();
+    private int dirty;
+    private long firstChange;
+    private long lastChange;
+    private boolean flushScheduled;
+    private long savedValue = Long.MIN_VALUE;
 
-    private List<PurchaseProgressGroupData> groups = new ArrayList<>();
-    private final Type groupsType = new TypeToken<ArrayList<PurchaseProgressGroupData>>(){}.getType();
+    // Set while the plugin applies a batch of edits on the client thread
+    private boolean batching;
+
+    // Legacy JSON values are streamed straight into the model
+    private final PurchaseProgressItemAdapter itemAdapter = new PurchaseProgressItemAdapter(this::convertIdToItem);
+    private final PurchaseProgressGroupAdapter groupAdapter = new PurchaseProgressGroupAdapter(itemAdapter);
 
     @Inject
-    public PurchaseProgressDataManager(PurchaseProgressPlugin plugin, Client client, ConfigManager configManager, ItemManager itemManager, Gson gson)
+    public PurchaseProgressDataManager(PurchaseProgressPlugin plugin, Client client, ClientThread clientThread, ConfigManager configManager, ItemManager itemManager, ScheduledExecutorService executor, PurchaseProgressConfig config)
+    {
+        this(plugin, client, clientThread, configManager, itemManager, executor, config, journalFile(configManager));
+    }
+
+    // The journal is normally the one of the current RuneLite profile
+    public PurchaseProgressDataManager(PurchaseProgressPlugin plugin, Client client, ClientThread clientThread, ConfigManager configManager, ItemManager itemManager, ScheduledExecutorService executor, PurchaseProgressConfig config, File journalFile)
     {
         this.plugin = plugin;
         this.client = client;
+        this.clientThread = clientThread;
         this.configManager = configManager;
         this.itemManager = itemManager;
-        this.gson = gson;
+        this.executor = executor;
+        this.config = config;
+        this.journal = new GoalJournal(journalFile, executor);
     }
 
     public boolean loadData()
@@ -78,15 +127,66 @@ public class PurchaseProgressDataManager
             return false;
         }
 
+        // Goals and value replayed from the journal when it is in use, the config keys are only read without one
+        final boolean journalLoaded = isJournalMode() && loadJournal();
+
         // Value
-        String value = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_VALUE);
-        plugin.setValue(Long.parseLong(value));
+        if (!journalLoaded)
+        {
+            plugin.setValue(parseValue(configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_VALUE)));
+            savedValue = plugin.getValue();
+        }
 
-        // Individual Items
-        itemIds.clear();
+        // Last known containers, revalued with current prices without needing the bank open
+        String containers = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_CONTAINERS);
+        if (containers != null)
+        {
+            try
+            {
+                plugin.restoreSnapshots(decodeSnapshots(containers));
+            }
+            catch (Exception e)
+            {
+                log.error("Exception occurred while loading purchase progress containers", e);
+            }
+        }
 
-        String itemsJson = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_ITEMIDS);
-        if (itemsJson == null || itemsJson.equals("[]"))
+        // Value samples behind the time to goal estimates
+        String wealth = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_WEALTH);
+        if (wealth != null)
+        {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(wealth))))
+            {
+                plugin.getWealthTracker().read(in);
+            }
+            catch (Exception e)
+            {
+                log.error("Exception occurred while loading purchase progress wealth samples", e);
+            }
+        }
+
+        // Price history of goal items
+        String priceHistory = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_PRICE_HISTORY);
+        if (priceHistory != null)
+        {
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(priceHistory))))
+            {
+                plugin.getPriceHistory().read(in);
+            }
+            catch (Exception e)
+            {
+                log.error("Exception occurred while loading purchase progress price history", e);
+            }
+        }
+
+        if (journalLoaded)
+        {
+            return true;
+        }
+
+        // Individual Items
+        String itemsValue = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_ITEMIDS);
+        if (itemsValue == null || itemsValue.equals("[]"))
         {
             plugin.setItems(new ArrayList<>());
         }
@@ -94,8 +194,17 @@ public class PurchaseProgressDataManager
         {
             try
             {
-                itemIds = gson.fromJson(itemsJson, itemsType);
-                convertItems();
+                if (GoalCodec.isLegacy(itemsValue))
+                {
+                    try (JsonReader in = new JsonReader(new StringReader(itemsValue)))
+                    {
+                        plugin.setItems(itemAdapter.readList(in));
+                    }
+                }
+                else
+                {
+                    plugin.setItems(GoalCodec.decodeItems(itemsValue, this::convertIdToItem));
+                }
             }
             catch (Exception e)
             {
@@ -105,10 +214,8 @@ public class PurchaseProgressDataManager
         }
 
         // Groups and their items
-        groups.clear();
-
-        String groupsJson = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_GROUPS);
-        if (groupsJson == null || groupsJson.equals("[]"))
+        String groupsValue = configManager.getConfiguration(CONFIG_GROUP, CONFIG_KEY_GROUPS);
+        if (groupsValue == null || groupsValue.equals("[]"))
         {
             plugin.setGroups(new ArrayList<>());
         }
@@ -116,8 +223,17 @@ public class PurchaseProgressDataManager
         {
             try
             {
-                groups = gson.fromJson(groupsJson, groupsType);
-                convertGroups();
+                if (GoalCodec.isLegacy(groupsValue))
+                {
+                    try (JsonReader in = new JsonReader(new StringReader(groupsValue)))
+                    {
+                        plugin.setGroups(groupAdapter.readList(in));
+                    }
+                }
+                else
+                {
+                    plugin.setGroups(GoalCodec.decodeGroups(groupsValue, this::convertIdToItem));
+                }
             }
             catch (Exception e)
             {
@@ -126,28 +242,457 @@ public class PurchaseProgressDataManager
             }
         }
 
-        plugin.updateItemPrices();
+        // First load in journal mode seeds the journal with the goals from the config, an unreadable one has been moved aside
+        if (isJournalMode())
+        {
+            journal.compact(captureState());
+        }
+
         return true;
     }
 
-    public void saveData()
+    // The key is only written once the value first changes, so a fresh profile has none
+    private static long parseValue(String value)
     {
-        // Value
-        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_VALUE, String.valueOf(plugin.getValue()));
+        if (value == null || value.trim().isEmpty())
+        {
+            return 0;
+        }
 
-        // Individual Items
-        itemIds.clear();
+        try
+        {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e)
+        {
+            log.error("Purchase progress value {} is not a number, starting from 0", value, e);
+            return 0;
+        }
+    }
 
-        for (PurchaseProgressItem item : plugin.getItems())
+    public void saveValue()
+    {
+        synchronized (this)
         {
-            itemIds.add(item.getItemId());
+            dirty &= ~VALUE;
         }
 
-        final String itemsJson = gson.toJson(itemIds);
-        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_ITEMIDS, itemsJson);
+        final long value = plugin.getValue();
+        if (value == savedValue)
+        {
+            return;
+        }
+        savedValue = value;
 
-        // Groups and their items
-        groups.clear();
+        if (isJournalMode())
+        {
+            journal.value(value);
+            compactIfNeeded();
+        }
+        else
+        {
+            configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_VALUE, String.valueOf(value));
+        }
+    }
+
+    // Goal edits, appended to the journal in journal mode and marked dirty for the config keys otherwise.
+    // Indexes are positions before the edit, a null group is the individual item list.
+
+    // Edits made between these are saved once as a whole, a rejected batch isn't saved at all
+    public void beginBatch()
+    {
+        batching = true;
+    }
+
+    public void endBatch(boolean applied)
+    {
+        batching = false;
+        if (!applied)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.snapshot(captureState());
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(ITEM_IDS | GROUPS);
+        }
+    }
+
+    public void itemAdded(PurchaseProgressGroup group, int itemId)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.itemAdded(groupIndex(group), itemId);
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(group == null ? ITEM_IDS : GROUPS);
+        }
+    }
+
+    public void itemRemoved(PurchaseProgressGroup group, int index)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.itemRemoved(groupIndex(group), index);
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(group == null ? ITEM_IDS : GROUPS);
+        }
+    }
+
+    // A target index of -1 appends to the end of the target list
+    public void itemMoved(PurchaseProgressGroup from, int fromIndex, PurchaseProgressGroup to, int toIndex)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.itemMoved(groupIndex(from), fromIndex, groupIndex(to), toIndex);
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty((from == null || to == null ? ITEM_IDS : 0) | (from != null || to != null ? GROUPS : 0));
+        }
+    }
+
+    public void itemsSorted()
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            final List<Integer> sorted = new ArrayList<>();
+            for (PurchaseProgressItem item : plugin.getItems())
+            {
+                sorted.add(item.getItemId());
+            }
+
+            journal.itemsSet(sorted);
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(ITEM_IDS);
+        }
+    }
+
+    public void groupAdded(PurchaseProgressGroup group)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.groupAdded(group.getName());
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(GROUPS);
+        }
+    }
+
+    public void groupRemoved(int index, boolean keepItems)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.groupRemoved(index, keepItems);
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(keepItems ? ITEM_IDS | GROUPS : GROUPS);
+        }
+    }
+
+    // Renames and collapse toggles
+    public void groupUpdated(PurchaseProgressGroup group)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.groupUpdated(groupIndex(group), group.getName(), group.isCollapsed());
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(GROUPS);
+        }
+    }
+
+    public void groupNested(PurchaseProgressGroup group)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.groupNested(groupIndex(group), groupIndex(group.getParent()));
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(GROUPS);
+        }
+    }
+
+    public void groupMoved(int from, int to)
+    {
+        if (batching)
+        {
+            return;
+        }
+
+        if (isJournalMode())
+        {
+            journal.groupMoved(from, to);
+            compactIfNeeded();
+        }
+        else
+        {
+            markDirty(GROUPS);
+        }
+    }
+
+    public void persistenceModeChanged()
+    {
+        if (isJournalMode())
+        {
+            journal.compact(captureState());
+        }
+        else
+        {
+            // The config keys may be behind the journal, so all of them are rewritten
+            journal.close();
+            savedValue = Long.MIN_VALUE;
+            markDirty(VALUE | ITEM_IDS | GROUPS);
+        }
+    }
+
+    public void shutDown()
+    {
+        flush();
+        journal.close();
+    }
+
+    // Records that sections changed, they are written together once edits settle
+    public synchronized void markDirty(int sections)
+    {
+        final long now = System.currentTimeMillis();
+        if (dirty == 0)
+        {
+            firstChange = now;
+        }
+
+        dirty |= sections;
+        lastChange = now;
+
+        if (!flushScheduled)
+        {
+            flushScheduled = true;
+            executor.schedule(this::scheduledFlush, FLUSH_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Writes every dirty section now
+    public void flush()
+    {
+        final int sections;
+        synchronized (this)
+        {
+            sections = dirty;
+            dirty = 0;
+        }
+
+        if ((sections & VALUE) != 0)
+        {
+            saveValue();
+        }
+
+        if ((sections & ITEM_IDS) != 0)
+        {
+            saveItemIds();
+        }
+
+        if ((sections & GROUPS) != 0)
+        {
+            saveGroups();
+        }
+    }
+
+    private synchronized void scheduledFlush()
+    {
+        final long now = System.currentTimeMillis();
+        final long wait = Math.min(lastChange + FLUSH_DELAY, firstChange + MAX_FLUSH_DELAY) - now;
+
+        if (dirty != 0 && wait > 0)
+        {
+            executor.schedule(this::scheduledFlush, wait, TimeUnit.MILLISECONDS);
+            return;
+        }
+
+        // Goals are only edited on the client thread, so they are read there too
+        flushScheduled = false;
+        clientThread.invokeLater(this::flush);
+    }
+
+    public void saveSnapshots(List<ContainerSnapshot> snapshots)
+    {
+        if (snapshots.isEmpty())
+        {
+            return;
+        }
+
+        try
+        {
+            configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_CONTAINERS, encodeSnapshots(snapshots));
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while saving purchase progress containers", e);
+        }
+    }
+
+    public void saveHistory()
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            plugin.getPriceHistory().write(out);
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while saving purchase progress price history", e);
+            return;
+        }
+
+        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_PRICE_HISTORY, Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    public void saveWealth()
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            plugin.getWealthTracker().write(out);
+        }
+        catch (IOException e)
+        {
+            log.error("Exception occurred while saving purchase progress wealth samples", e);
+            return;
+        }
+
+        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_WEALTH, Base64.getEncoder().encodeToString(bytes.toByteArray()));
+    }
+
+    // One journal per RuneLite profile, like the config keys it stands in for
+    private static File journalFile(ConfigManager configManager)
+    {
+        final ConfigProfile profile = configManager.getProfile();
+        return new File(JOURNAL_DIR, profile == null ? "goals.journal" : "goals-" + profile.getId() + ".journal");
+    }
+
+    private boolean isJournalMode()
+    {
+        return config.persistenceMode() == PersistenceMode.JOURNAL && !journalUnusable;
+    }
+
+    // False when there is no journal yet or it couldn't be read, the goals then come from the config keys
+    private boolean loadJournal()
+    {
+        final GoalJournal.State state;
+        try
+        {
+            state = journal.read();
+        }
+        catch (IOException e)
+        {
+            // Kept for recovery rather than compacted over with the possibly stale config keys
+            try
+            {
+                log.error("Purchase progress journal is unreadable, moved it to {}", journal.quarantine(), e);
+            }
+            catch (IOException moveException)
+            {
+                // Left where it is, so nothing may be written to it this session
+                log.error("Purchase progress journal is unreadable and couldn't be moved, using the config keys instead", moveException);
+                journalUnusable = true;
+            }
+            return false;
+        }
+
+        if (state == null)
+        {
+            return false;
+        }
+
+        plugin.setValue(state.value);
+        savedValue = state.value;
+
+        convertItems(state.itemIds);
+        convertGroups(state.groups);
+
+        compactIfNeeded();
+        return true;
+    }
+
+    private void compactIfNeeded()
+    {
+        if (journal.needsCompaction())
+        {
+            journal.compact(captureState());
+        }
+    }
+
+    // Copy of the goals taken on the client thread, written out in the background
+    private GoalJournal.State captureState()
+    {
+        final GoalJournal.State state = new GoalJournal.State();
+        state.value = plugin.getValue();
+
+        for (PurchaseProgressItem item : plugin.getItems())
+        {
+            state.itemIds.add(item.getItemId());
+        }
 
         for (PurchaseProgressGroup group : plugin.getGroups())
         {
@@ -157,14 +702,30 @@ public class PurchaseProgressDataManager
                 groupItems.add(item.getItemId());
             }
 
-            groups.add(new PurchaseProgressGroupData(group.getName(), group.isCollapsed(), groupItems));
+            final PurchaseProgressGroupData groupData = new PurchaseProgressGroupData(group.getName(), group.isCollapsed(), groupItems);
+            groupData.setParent(group.getParent() == null ? null : group.getParent().getName());
+            state.groups.add(groupData);
         }
 
-        final String groupsJson = gson.toJson(groups);
-        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_GROUPS, groupsJson);
+        return state;
+    }
+
+    private int groupIndex(PurchaseProgressGroup group)
+    {
+        return group == null ? GoalJournal.NO_GROUP : plugin.getGoalIndex().getGroupIndex(group.getName());
+    }
+
+    private void saveItemIds()
+    {
+        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_ITEMIDS, GoalCodec.encodeItems(plugin.getItems()));
+    }
+
+    private void saveGroups()
+    {
+        configManager.setConfiguration(CONFIG_GROUP, CONFIG_KEY_GROUPS, GoalCodec.encodeGroups(plugin.getGroups()));
     }
 
-    private void convertItems()
+    private void convertItems(List<Integer> itemIds)
     {
         List<PurchaseProgressItem> progressItems = new ArrayList<>();
 
@@ -176,9 +737,10 @@ public class PurchaseProgressDataManager
         plugin.setItems(progressItems);
     }
 
-    private void convertGroups()
+    private void convertGroups(List<PurchaseProgressGroupData> groups)
     {
         List<PurchaseProgressGroup> progressGroups = new ArrayList<>();
+        Map<String, PurchaseProgressGroup> groupsByName = new HashMap<>();
 
         for (PurchaseProgressGroupData group : groups)
         {
@@ -188,7 +750,18 @@ public class PurchaseProgressDataManager
                 groupItems.add(convertIdToItem(itemId));
             }
 
-            progressGroups.add(new PurchaseProgressGroup(group.getName(), group.isCollapsed(), groupItems));
+            PurchaseProgressGroup progressGroup = new PurchaseProgressGroup(group.getName(), group.isCollapsed(), groupItems);
+            progressGroups.add(progressGroup);
+            groupsByName.put(group.getName(), progressGroup);
+        }
+
+        // Parents are named, so they are linked once every group exists
+        for (int i = 0; i < groups.size(); i++)
+        {
+            if (groups.get(i).getParent() != null)
+            {
+                progressGroups.get(i).linkParent(groupsByName.get(groups.get(i).getParent()));
+            }
         }
 
         plugin.setGroups(progressGroups);
@@ -196,8 +769,76 @@ public class PurchaseProgressDataManager
 
     private PurchaseProgressItem convertIdToItem(int itemId)
     {
-        AsyncBufferedImage itemImage = itemManager.getImage(itemId);
-        String itemName = itemManager.getItemComposition(itemId).getName();
-        return new PurchaseProgressItem(itemImage, itemName, itemId, 0); // Item prices updated after load
+        // Name and icon are looked up later by the hydrator, item prices updated after load
+        PurchaseProgressItem item = new PurchaseProgressItem(null, null, itemId, 0);
+        plugin.getItemHydrator().enqueue(item);
+        return item;
+    }
+
+    private static String encodeSnapshots(List<ContainerSnapshot> snapshots) throws IOException
+    {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes))
+        {
+            out.writeByte(snapshots.size());
+            for (ContainerSnapshot snapshot : snapshots)
+            {
+                final int[] itemIds = snapshot.getItemIds();
+                final int[] quantities = snapshot.getQuantities();
+                final int[] tabSizes = snapshot.getTabSizes();
+
+                out.writeByte(snapshot.getType().ordinal());
+
+                out.writeInt(itemIds.length);
+                for (int i = 0; i < itemIds.length; i++)
+                {
+                    out.writeInt(itemIds[i]);
+                    out.writeInt(quantities[i]);
+                }
+
+                out.writeByte(tabSizes.length);
+                for (int tabSize : tabSizes)
+                {
+                    out.writeInt(tabSize);
+                }
+            }
+        }
+
+        return Base64.getEncoder().encodeToString(bytes.toByteArray());
+    }
+
+    private static List<ContainerSnapshot> decodeSnapshots(String encoded) throws IOException
+    {
+        final ContainerType[] types = ContainerType.values();
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(encoded))))
+        {
+            final int count = in.readUnsignedByte();
+            final List<ContainerSnapshot> snapshots = new ArrayList<>(count);
+
+            for (int c = 0; c < count; c++)
+            {
+                final ContainerType type = types[in.readUnsignedByte()];
+
+                final int size = in.readInt();
+                final int[] itemIds = new int[size];
+                final int[] quantities = new int[size];
+                for (int i = 0; i < size; i++)
+                {
+                    itemIds[i] = in.readInt();
+                    quantities[i] = in.readInt();
+                }
+
+                final int[] tabSizes = new int[in.readUnsignedByte()];
+                for (int i = 0; i < tabSizes.length; i++)
+                {
+                    tabSizes[i] = in.readInt();
+                }
+
+                snapshots.add(new ContainerSnapshot(type, itemIds, quantities, tabSizes));
+            }
+
+            return snapshots;
+        }
     }
 }
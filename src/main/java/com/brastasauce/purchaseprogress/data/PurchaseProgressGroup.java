@@ -24,32 +24,157 @@
  */
 package com.brastasauce.purchaseprogress.data;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.Setter;
 
 import java.util.List;
 
-@AllArgsConstructor
 public class PurchaseProgressGroup {
     @Getter
-    @Setter
     private String name;
 
     @Getter
-    @Setter
     private boolean collapsed;
 
     @Getter
     private final List<PurchaseProgressItem> items;
 
+    // Group this one is nested in, null at the top level
+    @Getter
+    private PurchaseProgressGroup parent;
+
+    // Cached over this group's items and every group nested below it, kept current by adjustTotals
+    @Getter
+    private long totalCost;
+
+    @Getter
+    private int itemCount;
+
+    // Set on snapshot copies once they are linked, from then on nothing about them can change
+    private boolean frozen;
+
     public PurchaseProgressGroup(String name, List<PurchaseProgressItem> items)
+    {
+        this(name, false, items);
+    }
+
+    public PurchaseProgressGroup(String name, boolean collapsed, List<PurchaseProgressItem> items)
     {
         this.name = name;
-        collapsed = false;
+        this.collapsed = collapsed;
         this.items = items;
     }
 
+    public void setName(String name)
+    {
+        checkEditable();
+        this.name = name;
+    }
+
+    public void setCollapsed(boolean collapsed)
+    {
+        checkEditable();
+        this.collapsed = collapsed;
+    }
+
+    // Applies a change to this group and every group above it, so an update costs the nesting depth
+    public void adjustTotals(long cost, int count)
+    {
+        checkEditable();
+        for (PurchaseProgressGroup group = this; group != null; group = group.parent)
+        {
+            group.totalCost += cost;
+            group.itemCount += count;
+        }
+    }
+
+    // Moves this group's totals from the old chain of parents to the new one
+    public void setParent(PurchaseProgressGroup parent)
+    {
+        checkEditable();
+        if (this.parent != null)
+        {
+            this.parent.adjustTotals(-totalCost, -itemCount);
+        }
+
+        this.parent = parent;
+
+        if (parent != null)
+        {
+            parent.adjustTotals(totalCost, itemCount);
+        }
+    }
+
+    public boolean isNestedIn(PurchaseProgressGroup group)
+    {
+        for (PurchaseProgressGroup ancestor = parent; ancestor != null; ancestor = ancestor.parent)
+        {
+            if (ancestor == group)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getDepth()
+    {
+        int depth = 0;
+        for (PurchaseProgressGroup ancestor = parent; ancestor != null; ancestor = ancestor.parent)
+        {
+            depth++;
+        }
+        return depth;
+    }
+
+    // Links a parent without touching totals, for copies and loads that set the totals afterwards.
+    // A link that would nest a group inside itself is left out.
+    void linkParent(PurchaseProgressGroup parent)
+    {
+        if (parent != this && (parent == null || !parent.isNestedIn(this)))
+        {
+            this.parent = parent;
+        }
+    }
+
+    void copyTotals(PurchaseProgressGroup group)
+    {
+        totalCost = group.totalCost;
+        itemCount = group.itemCount;
+    }
+
+    void freeze()
+    {
+        frozen = true;
+    }
+
+    private void checkEditable()
+    {
+        if (frozen)
+        {
+            throw new UnsupportedOperationException("Snapshot groups can't be changed");
+        }
+    }
+
+    // Rebuilds every cached total from the items, used after loading
+    public static void recalculateTotals(List<PurchaseProgressGroup> groups)
+    {
+        for (PurchaseProgressGroup group : groups)
+        {
+            group.totalCost = 0;
+            group.itemCount = 0;
+        }
+
+        for (PurchaseProgressGroup group : groups)
+        {
+            long cost = 0;
+            for (PurchaseProgressItem item : group.getItems())
+            {
+                cost += item.getGePrice();
+            }
+            group.adjustTotals(cost, group.getItems().size());
+        }
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -61,4 +186,10 @@ public class PurchaseProgressGroup {
         final PurchaseProgressGroup group = (PurchaseProgressGroup) obj;
         return group.getName().equals(this.name);
     }
+
+    @Override
+    public int hashCode()
+    {
+        return name.hashCode();
+    }
 }
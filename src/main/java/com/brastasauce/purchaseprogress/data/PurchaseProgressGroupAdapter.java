@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Same JSON shape as PurchaseProgressGroupData, written straight from and read straight into the model
+public class PurchaseProgressGroupAdapter extends TypeAdapter<PurchaseProgressGroup>
+{
+    private final PurchaseProgressItemAdapter itemAdapter;
+
+    public PurchaseProgressGroupAdapter(PurchaseProgressItemAdapter itemAdapter)
+    {
+        this.itemAdapter = itemAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, PurchaseProgressGroup group) throws IOException
+    {
+        out.beginObject();
+        out.name("name").value(group.getName());
+        out.name("collapsed").value(group.isCollapsed());
+        out.name("items");
+        itemAdapter.writeList(out, group.getItems());
+        out.endObject();
+    }
+
+    @Override
+    public PurchaseProgressGroup read(JsonReader in) throws IOException
+    {
+        String name = null;
+        boolean collapsed = false;
+        List<PurchaseProgressItem> items = null;
+
+        in.beginObject();
+        while (in.hasNext())
+        {
+            switch (in.nextName())
+            {
+                case "name":
+                    name = in.nextString();
+                    break;
+                case "collapsed":
+                    collapsed = in.nextBoolean();
+                    break;
+                case "items":
+                    items = itemAdapter.readList(in);
+                    break;
+                default:
+                    in.skipValue();
+            }
+        }
+        in.endObject();
+
+        if (name == null)
+        {
+            throw new IOException("Group without a name");
+        }
+        return new PurchaseProgressGroup(name, collapsed, items == null ? new ArrayList<>() : items);
+    }
+
+    public void writeList(JsonWriter out, List<PurchaseProgressGroup> groups) throws IOException
+    {
+        out.beginArray();
+        for (PurchaseProgressGroup group : groups)
+        {
+            write(out, group);
+        }
+        out.endArray();
+    }
+
+    public List<PurchaseProgressGroup> readList(JsonReader in) throws IOException
+    {
+        final List<PurchaseProgressGroup> groups = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            groups.add(read(in));
+        }
+        in.endArray();
+        return groups;
+    }
+}
@@ -1,15 +1,25 @@
 package com.brastasauce.purchaseprogress.data;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.Setter;
 
 import java.util.List;
 
-@AllArgsConstructor
 @Getter
 public class PurchaseProgressGroupData
 {
     private String name;
     private boolean collapsed;
     private List<Integer> items;
+
+    // Name of the group this one is nested in, null at the top level
+    @Setter
+    private String parent;
+
+    public PurchaseProgressGroupData(String name, boolean collapsed, List<Integer> items)
+    {
+        this.name = name;
+        this.collapsed = collapsed;
+        this.items = items;
+    }
 }
@@ -24,12 +24,9 @@
  */
 package com.brastasauce.purchaseprogress.data;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.Setter;
 import net.runelite.client.util.AsyncBufferedImage;
 
-@AllArgsConstructor
 public class PurchaseProgressItem implements Comparable<PurchaseProgressItem>
 {
     @Getter
@@ -42,9 +39,81 @@ public class PurchaseProgressItem implements Comparable<PurchaseProgressItem>
     private int itemId;
 
     @Getter
-    @Setter
     private int gePrice;
 
+    // Copies handed out in snapshots can't be changed, the live item keeps its latest copy until it changes
+    private final boolean frozen;
+    private PurchaseProgressItem frozenCopy;
+
+    public PurchaseProgressItem(AsyncBufferedImage image, String name, int itemId, int gePrice)
+    {
+        this(image, name, itemId, gePrice, false);
+    }
+
+    private PurchaseProgressItem(AsyncBufferedImage image, String name, int itemId, int gePrice, boolean frozen)
+    {
+        this.image = image;
+        this.name = name;
+        this.itemId = itemId;
+        this.gePrice = gePrice;
+        this.frozen = frozen;
+    }
+
+    public void setImage(AsyncBufferedImage image)
+    {
+        checkEditable();
+        this.image = image;
+        frozenCopy = null;
+    }
+
+    public void setName(String name)
+    {
+        checkEditable();
+        this.name = name;
+        frozenCopy = null;
+    }
+
+    public void setGePrice(int gePrice)
+    {
+        checkEditable();
+        this.gePrice = gePrice;
+        frozenCopy = null;
+    }
+
+    // Read-only copy for a snapshot, shared by every snapshot published while the item is unchanged
+    PurchaseProgressItem frozenCopy()
+    {
+        if (frozen)
+        {
+            return this;
+        }
+
+        if (frozenCopy == null)
+        {
+            frozenCopy = new PurchaseProgressItem(image, name, itemId, gePrice, true);
+        }
+        return frozenCopy;
+    }
+
+    PurchaseProgressItem editableCopy()
+    {
+        return new PurchaseProgressItem(image, name, itemId, gePrice);
+    }
+
+    private void checkEditable()
+    {
+        if (frozen)
+        {
+            throw new UnsupportedOperationException("Snapshot items can't be changed");
+        }
+    }
+
+    // Loaded goals start with only their id, the name and icon are filled in afterwards
+    public boolean isHydrated()
+    {
+        return name != null;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -57,6 +126,12 @@ public class PurchaseProgressItem implements Comparable<PurchaseProgressItem>
         return item.getItemId() == this.itemId;
     }
 
+    @Override
+    public int hashCode()
+    {
+        return Integer.hashCode(itemId);
+    }
+
     @Override
     public int compareTo(PurchaseProgressItem other)
     {
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.data;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// Items are stored as their bare id, the rest of the item is looked up again when read
+public class PurchaseProgressItemAdapter extends TypeAdapter<PurchaseProgressItem>
+{
+    private final IntFunction<PurchaseProgressItem> itemFactory;
+
+    public PurchaseProgressItemAdapter(IntFunction<PurchaseProgressItem> itemFactory)
+    {
+        this.itemFactory = itemFactory;
+    }
+
+    @Override
+    public void write(JsonWriter out, PurchaseProgressItem item) throws IOException
+    {
+        out.value(item.getItemId());
+    }
+
+    @Override
+    public PurchaseProgressItem read(JsonReader in) throws IOException
+    {
+        return itemFactory.apply(in.nextInt());
+    }
+
+    public void writeList(JsonWriter out, List<PurchaseProgressItem> items) throws IOException
+    {
+        out.beginArray();
+        for (PurchaseProgressItem item : items)
+        {
+            write(out, item);
+        }
+        out.endArray();
+    }
+
+    public List<PurchaseProgressItem> readList(JsonReader in) throws IOException
+    {
+        final List<PurchaseProgressItem> items = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext())
+        {
+            items.add(read(in));
+        }
+        in.endArray();
+        return items;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import net.runelite.client.game.ItemManager;
+
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Guide prices are held in memory by the item manager, so lookups are cheap and done inline
+class GuidePriceSource implements PriceSource
+{
+    private static final long PRICE_TTL = Duration.ofMinutes(5).toMillis();
+
+    private final ItemManager itemManager;
+    private final PriceCache cache = new PriceCache(PRICE_TTL);
+
+    GuidePriceSource(ItemManager itemManager)
+    {
+        this.itemManager = itemManager;
+    }
+
+    @Override
+    public int getPrice(int itemId)
+    {
+        if (cache.isExpired(itemId))
+        {
+            cache.put(itemId, itemManager.getItemPrice(itemId));
+        }
+        return cache.getPrice(itemId);
+    }
+
+    @Override
+    public void refresh(int[] itemIds, Consumer<int[]> onRefreshed)
+    {
+        for (int itemId : itemIds)
+        {
+            cache.put(itemId, itemManager.getItemPrice(itemId));
+        }
+        onRefreshed.accept(itemIds);
+    }
+
+    @Override
+    public void evict(IntPredicate referenced)
+    {
+        cache.evict(referenced);
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.IntIntMap;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.game.ItemManager;
+
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Alchemy values never change, but item definitions can only be read on the client thread
+class HighAlchPriceSource implements PriceSource
+{
+    private final Client client;
+    private final ClientThread clientThread;
+    private final ItemManager itemManager;
+    private final Consumer<PriceSource> onLoaded;
+    private final PriceCache cache = new PriceCache(Long.MAX_VALUE);
+
+    // Items asked for off the client thread, loaded together on its next pass
+    private final IntIntMap pending = new IntIntMap();
+    private boolean loadScheduled;
+
+    HighAlchPriceSource(Client client, ClientThread clientThread, ItemManager itemManager, Consumer<PriceSource> onLoaded)
+    {
+        this.client = client;
+        this.clientThread = clientThread;
+        this.itemManager = itemManager;
+        this.onLoaded = onLoaded;
+    }
+
+    @Override
+    public int getPrice(int itemId)
+    {
+        if (!cache.isExpired(itemId))
+        {
+            return cache.getPrice(itemId);
+        }
+
+        if (client.isClientThread())
+        {
+            load(itemId);
+            return cache.getPrice(itemId);
+        }
+
+        synchronized (pending)
+        {
+            pending.put(itemId, 1);
+            if (!loadScheduled)
+            {
+                loadScheduled = true;
+                clientThread.invokeLater(this::loadPending);
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    public void refresh(int[] itemIds, Consumer<int[]> onRefreshed)
+    {
+        clientThread.invoke(() ->
+        {
+            for (int itemId : itemIds)
+            {
+                if (cache.isExpired(itemId))
+                {
+                    load(itemId);
+                }
+            }
+            onRefreshed.accept(itemIds);
+        });
+    }
+
+    @Override
+    public void evict(IntPredicate referenced)
+    {
+        cache.evict(referenced);
+    }
+
+    private void loadPending()
+    {
+        final int[] itemIds;
+        synchronized (pending)
+        {
+            itemIds = pending.keys();
+            pending.clear();
+            loadScheduled = false;
+        }
+
+        boolean changed = false;
+        for (int itemId : itemIds)
+        {
+            changed |= load(itemId);
+        }
+
+        if (changed)
+        {
+            onLoaded.accept(this);
+        }
+    }
+
+    private boolean load(int itemId)
+    {
+        return cache.put(itemId, itemManager.getItemComposition(itemId).getHaPrice());
+    }
+}
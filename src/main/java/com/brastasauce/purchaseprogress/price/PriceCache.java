@@ -0,0 +1,152 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.IntIntMap;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+// Bounded price store for a single source, entries past the TTL are kept until replaced so readers never wait on a fetch
+class PriceCache
+{
+    private static final int MAX_SIZE = 8192;
+
+    private final long ttl;
+
+    // Item id -> index into the parallel entry arrays
+    private final IntIntMap entries = new IntIntMap(1024);
+    private int[] itemIds = new int[256];
+    private int[] prices = new int[256];
+    private long[] fetchedAt = new long[256];
+
+    // Entry indexes freed by eviction, reused before the arrays grow
+    private int[] freeIndexes = new int[16];
+    private int freeCount;
+    private int highWater;
+
+    PriceCache(long ttl)
+    {
+        this.ttl = ttl;
+    }
+
+    // Last stored price regardless of its age, 0 when there is none
+    synchronized int getPrice(int itemId)
+    {
+        final int index = entries.get(itemId, -1);
+        return index == -1 ? 0 : prices[index];
+    }
+
+    synchronized boolean isExpired(int itemId)
+    {
+        final int index = entries.get(itemId, -1);
+        return index == -1 || System.currentTimeMillis() - fetchedAt[index] >= ttl;
+    }
+
+    // Returns whether the stored price changed
+    synchronized boolean put(int itemId, int price)
+    {
+        int index = entries.get(itemId, -1);
+        final boolean changed = index == -1 || prices[index] != price;
+
+        if (index == -1)
+        {
+            index = allocate();
+            entries.put(itemId, index);
+        }
+
+        itemIds[index] = itemId;
+        prices[index] = price;
+        fetchedAt[index] = System.currentTimeMillis();
+        return changed;
+    }
+
+    synchronized int size()
+    {
+        return entries.size();
+    }
+
+    // Drops expired entries that are no longer referenced, then the oldest unreferenced ones past the size bound
+    synchronized void evict(IntPredicate referenced)
+    {
+        final long now = System.currentTimeMillis();
+
+        for (int i = 0; i < highWater; i++)
+        {
+            if (itemIds[i] != -1 && now - fetchedAt[i] >= ttl && !referenced.test(itemIds[i]))
+            {
+                remove(i);
+            }
+        }
+
+        while (entries.size() > MAX_SIZE)
+        {
+            int oldest = -1;
+            for (int i = 0; i < highWater; i++)
+            {
+                if (itemIds[i] != -1 && !referenced.test(itemIds[i]) && (oldest == -1 || fetchedAt[i] < fetchedAt[oldest]))
+                {
+                    oldest = i;
+                }
+            }
+
+            if (oldest == -1)
+            {
+                break;
+            }
+            remove(oldest);
+        }
+    }
+
+    private int allocate()
+    {
+        if (freeCount > 0)
+        {
+            return freeIndexes[--freeCount];
+        }
+
+        if (highWater == itemIds.length)
+        {
+            final int capacity = itemIds.length * 2;
+            itemIds = Arrays.copyOf(itemIds, capacity);
+            prices = Arrays.copyOf(prices, capacity);
+            fetchedAt = Arrays.copyOf(fetchedAt, capacity);
+        }
+
+        return highWater++;
+    }
+
+    private void remove(int index)
+    {
+        entries.remove(itemIds[index]);
+        itemIds[index] = -1;
+
+        if (freeCount == freeIndexes.length)
+        {
+            freeIndexes = Arrays.copyOf(freeIndexes, freeCount * 2);
+        }
+        freeIndexes[freeCount++] = index;
+    }
+}
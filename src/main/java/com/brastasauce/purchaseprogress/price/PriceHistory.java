@@ -0,0 +1,384 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.IntIntMap;
+
+import javax.inject.Singleton;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntPredicate;
+
+// Fixed size price history per goal item, recent samples are kept finely and thinned out as they age
+@Singleton
+public class PriceHistory
+{
+    // Recent samples at most every 15 minutes, about 3 hours worth
+    private static final int RECENT_CAPACITY = 12;
+    private static final int RECENT_SPACING = 15;
+
+    // Aged samples at most once a day, about 2 weeks worth
+    private static final int AGED_CAPACITY = 14;
+    private static final int AGED_SPACING = 1440;
+
+    // Goals that are dropped lose their history, this only bounds the synced config value for very long lists
+    private static final int MAX_ITEMS = 512;
+    private static final int TREND_WINDOW = 60;
+    private static final float TREND_CHANGE = 0.01f;
+    private static final int MAX_TIME_DELTA = 0xFFFF;
+    private static final int VERSION = 1;
+
+    // Item id -> index into series
+    private final IntIntMap indexes = new IntIntMap(64);
+    private Series[] series = new Series[16];
+    private int count;
+    private boolean dirty;
+
+    // Bumped on every record, orders the items by how recently they were refreshed
+    private long clock;
+
+    public synchronized void record(int itemId, int price)
+    {
+        if (price <= 0)
+        {
+            return;
+        }
+
+        Series itemSeries = get(itemId);
+        if (itemSeries == null)
+        {
+            itemSeries = new Series(itemId);
+            if (count == MAX_ITEMS)
+            {
+                // Full, the item refreshed least recently gives up its place
+                final int index = leastRecentlyRecorded();
+                indexes.remove(series[index].itemId);
+                indexes.put(itemId, index);
+                series[index] = itemSeries;
+            }
+            else
+            {
+                if (count == series.length)
+                {
+                    series = Arrays.copyOf(series, count * 2);
+                }
+
+                indexes.put(itemId, count);
+                series[count++] = itemSeries;
+            }
+        }
+
+        itemSeries.lastUsed = ++clock;
+        if (itemSeries.record(now(), price))
+        {
+            dirty = true;
+        }
+    }
+
+    // -1 when the price fell over the last hour, 1 when it rose, 0 when flat or unknown
+    public synchronized int getTrend(int itemId)
+    {
+        final Series itemSeries = get(itemId);
+        if (itemSeries == null || itemSeries.recent.size < 2)
+        {
+            return 0;
+        }
+
+        final Ring recent = itemSeries.recent;
+        final int latest = recent.price(recent.size - 1);
+        final int since = recent.time(recent.size - 1) - TREND_WINDOW;
+
+        int previous = recent.price(0);
+        for (int i = recent.size - 2; i >= 0; i--)
+        {
+            if (recent.time(i) <= since)
+            {
+                previous = recent.price(i);
+                break;
+            }
+        }
+
+        if (Math.abs(latest - previous) < previous * TREND_CHANGE)
+        {
+            return 0;
+        }
+        return latest > previous ? 1 : -1;
+    }
+
+    // Lowest price recorded for the item, 0 when it has never been priced
+    public synchronized int getLowestPrice(int itemId)
+    {
+        final Series itemSeries = get(itemId);
+        return itemSeries == null ? 0 : itemSeries.lowestPrice;
+    }
+
+    // Drops history for items that are no longer goals
+    public synchronized void retain(IntPredicate tracked)
+    {
+        for (int i = count - 1; i >= 0; i--)
+        {
+            final int itemId = series[i].itemId;
+            if (tracked.test(itemId))
+            {
+                continue;
+            }
+
+            indexes.remove(itemId);
+            series[i] = series[--count];
+            series[count] = null;
+            if (i != count)
+            {
+                indexes.put(series[i].itemId, i);
+            }
+            dirty = true;
+        }
+    }
+
+    synchronized int size()
+    {
+        return count;
+    }
+
+    public synchronized boolean isDirty()
+    {
+        return dirty;
+    }
+
+    public synchronized void write(DataOutputStream out) throws IOException
+    {
+        out.writeByte(VERSION);
+        out.writeShort(count);
+        for (int i = 0; i < count; i++)
+        {
+            final Series itemSeries = series[i];
+            out.writeInt(itemSeries.itemId);
+            out.writeInt(itemSeries.lowestPrice);
+            itemSeries.recent.write(out);
+            itemSeries.aged.write(out);
+        }
+        dirty = false;
+    }
+
+    public synchronized void read(DataInputStream in) throws IOException
+    {
+        if (in.readUnsignedByte() != VERSION)
+        {
+            return;
+        }
+
+        indexes.clear();
+        Arrays.fill(series, null);
+        count = 0;
+
+        final int total = Math.min(in.readUnsignedShort(), MAX_ITEMS);
+        if (total > series.length)
+        {
+            series = new Series[total];
+        }
+
+        for (int i = 0; i < total; i++)
+        {
+            final Series itemSeries = new Series(in.readInt());
+            itemSeries.lowestPrice = in.readInt();
+            itemSeries.recent.read(in);
+            itemSeries.aged.read(in);
+
+            indexes.put(itemSeries.itemId, count);
+            series[count++] = itemSeries;
+        }
+        dirty = false;
+    }
+
+    private int leastRecentlyRecorded()
+    {
+        int oldest = 0;
+        for (int i = 1; i < count; i++)
+        {
+            if (series[i].lastUsed < series[oldest].lastUsed)
+            {
+                oldest = i;
+            }
+        }
+        return oldest;
+    }
+
+    private Series get(int itemId)
+    {
+        final int index = indexes.get(itemId, -1);
+        return index == -1 ? null : series[index];
+    }
+
+    // Minutes since the epoch, fits an int for the next few thousand years
+    private static int now()
+    {
+        return (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+    }
+
+    private static class Series
+    {
+        private final int itemId;
+        private final Ring recent = new Ring(RECENT_CAPACITY);
+        private final Ring aged = new Ring(AGED_CAPACITY);
+        private int lowestPrice;
+        private long lastUsed;
+
+        private Series(int itemId)
+        {
+            this.itemId = itemId;
+        }
+
+        // Returns true if anything that is persisted changed
+        private boolean record(int time, int price)
+        {
+            boolean changed = false;
+            if (lowestPrice == 0 || price < lowestPrice)
+            {
+                lowestPrice = price;
+                changed = true;
+            }
+
+            // Refreshes inside the spacing only move the latest price of the current sample
+            if (recent.size > 0 && time - recent.time(recent.size - 1) < RECENT_SPACING)
+            {
+                return recent.setLatestPrice(price) || changed;
+            }
+
+            if (recent.isFull())
+            {
+                age(recent.time(0), recent.price(0));
+            }
+            recent.push(time, price);
+            return true;
+        }
+
+        private void age(int time, int price)
+        {
+            if (aged.size > 0 && time - aged.time(aged.size - 1) < AGED_SPACING)
+            {
+                aged.setLatestPrice(price);
+                return;
+            }
+            aged.push(time, price);
+        }
+    }
+
+    // Parallel timestamp and price arrays, the oldest sample is overwritten once full
+    private static class Ring
+    {
+        private final int[] times;
+        private final int[] prices;
+        private int head;
+        private int size;
+
+        private Ring(int capacity)
+        {
+            times = new int[capacity];
+            prices = new int[capacity];
+        }
+
+        private boolean isFull()
+        {
+            return size == times.length;
+        }
+
+        // Index 0 is the oldest sample
+        private int time(int index)
+        {
+            return times[(head + index) % times.length];
+        }
+
+        private int price(int index)
+        {
+            return prices[(head + index) % prices.length];
+        }
+
+        private void push(int time, int price)
+        {
+            final int tail = (head + size) % times.length;
+            times[tail] = time;
+            prices[tail] = price;
+
+            if (isFull())
+            {
+                head = (head + 1) % times.length;
+            }
+            else
+            {
+                size++;
+            }
+        }
+
+        // Returns true if the price differed
+        private boolean setLatestPrice(int price)
+        {
+            final int latest = (head + size - 1) % prices.length;
+            if (prices[latest] == price)
+            {
+                return false;
+            }
+            prices[latest] = price;
+            return true;
+        }
+
+        // First time in full then minute deltas, a gap past the delta range is clamped
+        private void write(DataOutputStream out) throws IOException
+        {
+            out.writeByte(size);
+            int previous = 0;
+            for (int i = 0; i < size; i++)
+            {
+                if (i == 0)
+                {
+                    previous = time(i);
+                    out.writeInt(previous);
+                }
+                else
+                {
+                    final int delta = Math.min(time(i) - previous, MAX_TIME_DELTA);
+                    out.writeShort(delta);
+                    previous += delta;
+                }
+                out.writeInt(price(i));
+            }
+        }
+
+        private void read(DataInputStream in) throws IOException
+        {
+            head = 0;
+            size = 0;
+
+            final int total = in.readUnsignedByte();
+            int time = 0;
+            for (int i = 0; i < total; i++)
+            {
+                time = i == 0 ? in.readInt() : time + in.readUnsignedShort();
+                push(time, in.readInt());
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
+import net.runelite.api.Client;
+import net.runelite.client.callback.ClientThread;
+import net.runelite.client.game.ItemManager;
+import okhttp3.OkHttpClient;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Every price in the plugin is read through here, from whichever source is selected in the config
+@Singleton
+public class PriceProvider implements PriceSource
+{
+    private final PurchaseProgressConfig config;
+    private final GuidePriceSource guide;
+    private final HighAlchPriceSource highAlch;
+    private final RealTimePriceSource realTime;
+
+    private volatile Runnable listener = () -> {};
+
+    @Inject
+    PriceProvider(Client client, ClientThread clientThread, ItemManager itemManager, OkHttpClient okHttpClient, ScheduledExecutorService executor, PurchaseProgressConfig config)
+    {
+        this.config = config;
+
+        final Consumer<PriceSource> onLoaded = this::loaded;
+        this.guide = new GuidePriceSource(itemManager);
+        this.highAlch = new HighAlchPriceSource(client, clientThread, itemManager, onLoaded);
+        this.realTime = new RealTimePriceSource(okHttpClient, executor, config, onLoaded);
+    }
+
+    // Called when prices arrive in the background, so anything valued before they did can be redone
+    public void setListener(Runnable listener)
+    {
+        this.listener = listener;
+    }
+
+    public PriceSource getSource()
+    {
+        switch (config.priceSource())
+        {
+            case HIGH_ALCH:
+                return highAlch;
+            case REAL_TIME:
+                return realTime;
+            default:
+                return guide;
+        }
+    }
+
+    @Override
+    public int getPrice(int itemId)
+    {
+        return getSource().getPrice(itemId);
+    }
+
+    @Override
+    public void refresh(int[] itemIds, Consumer<int[]> onRefreshed)
+    {
+        getSource().refresh(itemIds, onRefreshed);
+    }
+
+    @Override
+    public void evict(IntPredicate referenced)
+    {
+        guide.evict(referenced);
+        highAlch.evict(referenced);
+        realTime.evict(referenced);
+    }
+
+    private void loaded(PriceSource source)
+    {
+        if (source == getSource())
+        {
+            listener.run();
+        }
+    }
+}
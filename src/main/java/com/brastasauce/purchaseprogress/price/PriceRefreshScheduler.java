@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.IntIntMap;
+import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.util.concurrent.TimeUnit;
+
+// Decides how often each goal item is repriced based on how much its price matters right now
+@Singleton
+public class PriceRefreshScheduler
+{
+    // Progress at which an item counts as close to being afforded
+    private static final float NEAR_COMPLETION = 0.9f;
+
+    // Relative price move between two refreshes that marks an item as volatile
+    private static final float VOLATILE_CHANGE = 0.02f;
+
+    public enum Tier
+    {
+        HOT,
+        NORMAL,
+        COLD
+    }
+
+    private final Client client;
+    private final PurchaseProgressConfig config;
+
+    // Seconds since startTime of each item's last refresh, and the items whose price moved noticeably
+    private final long startTime = System.currentTimeMillis();
+    private final IntIntMap lastRefresh = new IntIntMap();
+    private final IntIntMap volatileItems = new IntIntMap();
+    private int lastContainerRefresh = -1;
+
+    private volatile boolean panelVisible;
+
+    @Inject
+    PriceRefreshScheduler(Client client, PurchaseProgressConfig config)
+    {
+        this.client = client;
+        this.config = config;
+    }
+
+    public void setPanelVisible(boolean panelVisible)
+    {
+        this.panelVisible = panelVisible;
+    }
+
+    public synchronized Tier getTier(int itemId, int price, boolean collapsed, long value)
+    {
+        // Nobody is looking at the numbers, so everything backs off
+        if (!panelVisible || collapsed || client.getGameState() != GameState.LOGGED_IN)
+        {
+            return Tier.COLD;
+        }
+
+        if (volatileItems.containsKey(itemId) || (price > 0 && value >= price * NEAR_COMPLETION))
+        {
+            return Tier.HOT;
+        }
+
+        return Tier.NORMAL;
+    }
+
+    public synchronized boolean isDue(int itemId, Tier tier)
+    {
+        final int last = lastRefresh.get(itemId, -1);
+        return last == -1 || now() - last >= getPeriod(tier);
+    }
+
+    public synchronized void refreshed(int itemId, int oldPrice, int newPrice)
+    {
+        lastRefresh.put(itemId, now());
+
+        if (oldPrice > 0 && Math.abs(newPrice - oldPrice) >= oldPrice * VOLATILE_CHANGE)
+        {
+            volatileItems.put(itemId, 1);
+        }
+        else
+        {
+            volatileItems.remove(itemId);
+        }
+    }
+
+    // Containers are repriced on the normal cadence while the panel is watched, the cold one otherwise
+    public synchronized boolean isContainerRepriceDue()
+    {
+        final Tier tier = panelVisible && client.getGameState() == GameState.LOGGED_IN ? Tier.NORMAL : Tier.COLD;
+        if (lastContainerRefresh != -1 && now() - lastContainerRefresh < getPeriod(tier))
+        {
+            return false;
+        }
+
+        lastContainerRefresh = now();
+        return true;
+    }
+
+    private int getPeriod(Tier tier)
+    {
+        switch (tier)
+        {
+            case HOT:
+                return (int) TimeUnit.MINUTES.toSeconds(config.hotRefreshMinutes());
+            case NORMAL:
+                return (int) TimeUnit.MINUTES.toSeconds(config.normalRefreshMinutes());
+            default:
+                return (int) TimeUnit.MINUTES.toSeconds(config.coldRefreshMinutes());
+        }
+    }
+
+    private int now()
+    {
+        return (int) TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - startTime);
+    }
+}
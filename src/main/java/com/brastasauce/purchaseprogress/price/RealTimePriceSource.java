@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2022, BrastaSauce
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+
+// Instant buy and sell prices from a wiki format latest endpoint, every item comes back in one request
+@Slf4j
+class RealTimePriceSource implements PriceSource
+{
+    private static final long PRICE_TTL = Duration.ofMinutes(1).toMillis();
+    private static final String USER_AGENT = "purchase-progress RuneLite plugin";
+
+    private final OkHttpClient okHttpClient;
+    private final ScheduledExecutorService executor;
+    private final PurchaseProgressConfig config;
+    private final Consumer<PriceSource> onLoaded;
+    private final PriceCache cache = new PriceCache(PRICE_TTL);
+
+    // Callbacks waiting on the request in flight, later refreshes join it instead of starting another
+    private final List<Runnable> waiting = new ArrayList<>();
+    private boolean fetching;
+    private long lastFetch;
+
+    RealTimePriceSource(OkHttpClient okHttpClient, ScheduledExecutorService executor, PurchaseProgressConfig config, Consumer<PriceSource> onLoaded)
+    {
+        this.okHttpClient = okHttpClient;
+        this.executor = executor;
+        this.config = config;
+        this.onLoaded = onLoaded;
+    }
+
+    @Override
+    public int getPrice(int itemId)
+    {
+        if (cache.isExpired(itemId))
+        {
+            fetch(null);
+        }
+        return cache.getPrice(itemId);
+    }
+
+    @Override
+    public void refresh(int[] itemIds, Consumer<int[]> onRefreshed)
+    {
+        fetch(() -> onRefreshed.accept(itemIds));
+    }
+
+    @Override
+    public void evict(IntPredicate referenced)
+    {
+        cache.evict(referenced);
+    }
+
+    private void fetch(Runnable callback)
+    {
+        synchronized (waiting)
+        {
+            if (callback != null)
+            {
+                waiting.add(callback);
+            }
+
+            if (fetching)
+            {
+                return;
+            }
+
+            // The feed itself only updates about once a minute
+            if (System.currentTimeMillis() - lastFetch < PRICE_TTL)
+            {
+                if (callback != null)
+                {
+                    waiting.remove(callback);
+                    callback.run();
+                }
+                return;
+            }
+            fetching = true;
+        }
+
+        final String url = config.realTimePriceUrl();
+        if (url.startsWith("file:"))
+        {
+            // Local stand-in for the endpoint
+            executor.execute(() ->
+            {
+                try (Reader reader = Files.newBufferedReader(Paths.get(URI.create(url)), StandardCharsets.UTF_8))
+                {
+                    complete(parse(reader));
+                }
+                catch (Exception e)
+                {
+                    log.warn("Unable to read real-time prices from {}", url, e);
+                    complete(false);
+                }
+            });
+            return;
+        }
+
+        final HttpUrl httpUrl = HttpUrl.parse(url);
+        if (httpUrl == null)
+        {
+            log.warn("Invalid real-time price url {}", url);
+            complete(false);
+            return;
+        }
+
+        final Request request = new Request.Builder()
+                .url(httpUrl)
+                .header("User-Agent", USER_AGENT)
+                .build();
+
+        okHttpClient.newCall(request).enqueue(new Callback()
+        {
+            @Override
+            public void onFailure(Call call, IOException e)
+            {
+                log.warn("Unable to fetch real-time prices", e);
+                complete(false);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response)
+            {
+                try (ResponseBody body = response.body())
+                {
+                    if (!response.isSuccessful() || body == null)
+                    {
+                        log.warn("Unable to fetch real-time prices: {}", response.code());
+                        complete(false);
+                        return;
+                    }
+                    complete(parse(body.charStream()));
+                }
+                catch (Exception e)
+                {
+                    log.warn("Unable to parse real-time prices", e);
+                    complete(false);
+                }
+            }
+        });
+    }
+
+    // Streams the response so thousands of entries don't become thousands of objects
+    private boolean parse(Reader reader) throws IOException
+    {
+        boolean changed = false;
+
+        final JsonReader json = new JsonReader(reader);
+        json.beginObject();
+        while (json.hasNext())
+        {
+            if (!json.nextName().equals("data"))
+            {
+                json.skipValue();
+                continue;
+            }
+
+            json.beginObject();
+            while (json.hasNext())
+            {
+                final int itemId = Integer.parseInt(json.nextName());
+                int high = 0;
+                int low = 0;
+
+                json.beginObject();
+                while (json.hasNext())
+                {
+                    switch (json.nextName())
+                    {
+                        case "high":
+                            high = readPrice(json);
+                            break;
+                        case "low":
+                            low = readPrice(json);
+                            break;
+                        default:
+                            json.skipValue();
+                    }
+                }
+                json.endObject();
+
+                // Midpoint of the instant buy and sell prices, or whichever side has traded
+                final int price = high > 0 && low > 0 ? (int) (((long) high + low) / 2) : Math.max(high, low);
+                if (price > 0)
+                {
+                    changed |= cache.put(itemId, price);
+                }
+            }
+            json.endObject();
+        }
+        json.endObject();
+
+        return changed;
+    }
+
+    private static int readPrice(JsonReader json) throws IOException
+    {
+        if (json.peek() == JsonToken.NULL)
+        {
+            json.nextNull();
+            return 0;
+        }
+        return json.nextInt();
+    }
+
+    private void complete(boolean changed)
+    {
+        final List<Runnable> callbacks;
+        synchronized (waiting)
+        {
+            callbacks = new ArrayList<>(waiting);
+            waiting.clear();
+            fetching = false;
+            lastFetch = System.currentTimeMillis();
+        }
+
+        for (Runnable callback : callbacks)
+        {
+            callback.run();
+        }
+
+        if (changed)
+        {
+            onLoaded.accept(this);
+        }
+    }
+}
@@ -26,8 +26,10 @@ package com.brastasauce.purchaseprogress.ui;
 
 import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
 import com.brastasauce.purchaseprogress.PurchaseProgressPlugin;
+import com.brastasauce.purchaseprogress.WealthTracker;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import com.brastasauce.purchaseprogress.price.PriceHistory;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.QuantityFormatter;
@@ -57,8 +59,19 @@ public class PurchaseProgressGroupItemPanel extends JPanel
     private static final ImageIcon SHIFT_DOWN_ICON;
     private static final ImageIcon SHIFT_DOWN_HOVER_ICON;
     private static final Dimension IMAGE_SIZE = new Dimension(32, 32);
+    private static final String TREND_UP = " \u25B2";
+    private static final String TREND_DOWN = " \u25BC";
 
     private PurchaseProgressConfig config;
+    // Frozen copy from the snapshot the row was last updated from
+    private PurchaseProgressItem item;
+    private final PriceHistory priceHistory;
+    private final WealthTracker wealthTracker;
+
+    private final JLabel itemImage = new JLabel();
+    private final JLabel itemName = new JLabel();
+    private final JLabel gePriceLabel = new JLabel();
+    private final JLabel progressLabel = new JLabel();
 
     private float percent;
     private int itemIndex;
@@ -80,7 +93,10 @@ public class PurchaseProgressGroupItemPanel extends JPanel
 
     PurchaseProgressGroupItemPanel(PurchaseProgressPlugin plugin, PurchaseProgressGroup group, PurchaseProgressItem item, PurchaseProgressConfig config)
     {
+        this.priceHistory = plugin.getPriceHistory();
+        this.wealthTracker = plugin.getWealthTracker();
         this.config = config;
+        this.item = item;
         setLayout(new BorderLayout(5, 0));
         setBorder(new EmptyBorder(5, 5, 5, 0));
 
@@ -88,12 +104,7 @@ public class PurchaseProgressGroupItemPanel extends JPanel
         int itemsSize = group.getItems().size();
 
         // Image
-        JLabel itemImage = new JLabel();
         itemImage.setPreferredSize(IMAGE_SIZE);
-        if (item.getImage() != null)
-        {
-            item.getImage().addTo(itemImage);
-        }
         add(itemImage, BorderLayout.LINE_START);
 
         // Item Details Panel
@@ -101,36 +112,26 @@ public class PurchaseProgressGroupItemPanel extends JPanel
         rightPanel.setBackground(new Color(0, 0, 0, 0));
 
         // Item Name
-        JLabel itemName = new JLabel();
         itemName.setForeground(Color.WHITE);
         itemName.setMaximumSize(new Dimension(0, 0));
         itemName.setPreferredSize(new Dimension(0, 0));
-        itemName.setText(item.getName());
         rightPanel.add(itemName);
+        showDetails();
 
-        // GE Price
-        JLabel gePriceLabel = new JLabel();
-        if (item.getGePrice() > 0)
+        // Rows on screen get their name and icon ahead of the rest
+        if (!item.isHydrated())
         {
-            gePriceLabel.setText(QuantityFormatter.formatNumber(item.getGePrice()) + " gp");
-        }
-        else
-        {
-            gePriceLabel.setText("N/A");
+            plugin.getItemHydrator().prioritize(item);
         }
+
+        // GE Price
         gePriceLabel.setForeground(ColorScheme.GRAND_EXCHANGE_PRICE);
         rightPanel.add(gePriceLabel);
 
         // Purchase Progress
-        JLabel progressLabel = new JLabel();
-        percent = ((float) plugin.getValue() / item.getGePrice()) * 100;
-        if (percent >= 100)
-        {
-            percent = 100;
-        }
+        updateLabels(plugin.getValue());
         if (!config.onlyTrackFirstItem() || itemIndex == 0)
         {
-            progressLabel.setText(String.format("%.0f", percent) + "%");
             rightPanel.add(progressLabel);
         }
 
@@ -259,6 +260,52 @@ public class PurchaseProgressGroupItemPanel extends JPanel
         return confirm == JOptionPane.YES_NO_OPTION;
     }
 
+    // Shows the name and icon once the item has been hydrated
+    private void showDetails()
+    {
+        if (item.getImage() != null)
+        {
+            item.getImage().addTo(itemImage);
+        }
+        itemName.setText(item.isHydrated() ? item.getName() : "Loading...");
+    }
+
+    // Takes the item from the newest snapshot, the name and icon are only set again once they have been filled in
+    void update(PurchaseProgressItem current, long value)
+    {
+        final boolean hydrated = current.isHydrated() && !item.isHydrated();
+        item = current;
+        if (hydrated)
+        {
+            showDetails();
+        }
+        updateLabels(value);
+        repaint();
+    }
+
+    private void updateLabels(long value)
+    {
+        if (item.getGePrice() > 0)
+        {
+            final int trend = priceHistory.getTrend(item.getItemId());
+            gePriceLabel.setText(QuantityFormatter.formatNumber(item.getGePrice()) + " gp" + (trend > 0 ? TREND_UP : trend < 0 ? TREND_DOWN : ""));
+            gePriceLabel.setToolTipText("Cheapest seen: " + QuantityFormatter.formatNumber(priceHistory.getLowestPrice(item.getItemId())) + " gp");
+        }
+        else
+        {
+            gePriceLabel.setText("N/A");
+            gePriceLabel.setToolTipText(null);
+        }
+
+        percent = ((float) value / item.getGePrice()) * 100;
+        if (percent >= 100)
+        {
+            percent = 100;
+        }
+        progressLabel.setText(String.format("%.0f", percent) + "%");
+        progressLabel.setToolTipText(wealthTracker.getEtaText(value, item.getGePrice()));
+    }
+
     @Override
     protected void paintComponent(Graphics g)
     {
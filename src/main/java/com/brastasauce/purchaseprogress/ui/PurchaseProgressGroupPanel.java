@@ -26,11 +26,13 @@ package com.brastasauce.purchaseprogress.ui;
 
 import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
 import com.brastasauce.purchaseprogress.PurchaseProgressPlugin;
+import com.brastasauce.purchaseprogress.WealthTracker;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
 import lombok.Getter;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.util.ImageUtil;
+import net.runelite.client.util.QuantityFormatter;
 
 import javax.swing.AbstractAction;
 import javax.swing.ImageIcon;
@@ -52,8 +54,13 @@ import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 public class PurchaseProgressGroupPanel extends JPanel
 {
@@ -67,12 +74,28 @@ public class PurchaseProgressGroupPanel extends JPanel
     private static final ImageIcon UNCOLLAPSED_ICON;
     private static final ImageIcon UNCOLLAPSED_HOVER_ICON;
 
+    private static final int NEST_INDENT = 10;
+
     private float percent;
     private final boolean collapsed;
+    private final boolean onlyTrackFirstItem;
+    private PurchaseProgressGroup group;
+    private final WealthTracker wealthTracker;
+
+    @Getter
+    private int groupIndex;
+    private boolean canShiftUp;
+    private boolean canShiftDown;
 
+    // Cost of this group and every group nested in it
     @Getter
     private long totalCost;
 
+    private final JLabel groupName = new JLabel();
+    private final JLabel percentLabel = new JLabel();
+    private final Map<Integer, PurchaseProgressGroupItemPanel> itemPanels = new HashMap<>();
+    private PurchaseProgressTotalPanel totalPanel;
+
     static
     {
         final BufferedImage addImage = ImageUtil.loadImageResource(PurchaseProgressPluginPanel.class, "/add_icon_white.png");
@@ -91,18 +114,15 @@ public class PurchaseProgressGroupPanel extends JPanel
     PurchaseProgressGroupPanel(PurchaseProgressPlugin plugin, PurchaseProgressPluginPanel panel, PurchaseProgressGroup group, PurchaseProgressConfig config)
     {
         setLayout(new BorderLayout(5, 0));
-        setBorder(new EmptyBorder(5, 5, 5, 0));
+        setBorder(new EmptyBorder(5, 5 + group.getDepth() * NEST_INDENT, 5, 0));
         setBackground(ColorScheme.DARKER_GRAY_COLOR);
 
-        int groupIndex = plugin.getGroups().indexOf(group);
-        int groupsSize = plugin.getGroups().size();
-
-        for (PurchaseProgressItem item : group.getItems())
-        {
-            totalCost += item.getGePrice();
-        }
+        this.group = group;
+        this.wealthTracker = plugin.getWealthTracker();
+        this.totalCost = group.getTotalCost();
 
         this.collapsed = group.isCollapsed();
+        this.onlyTrackFirstItem = config.onlyTrackFirstItem();
 
         // Top Panel
         JPanel topPanel = new JPanel(new BorderLayout());
@@ -116,7 +136,7 @@ public class PurchaseProgressGroupPanel extends JPanel
             @Override
             public void actionPerformed(ActionEvent e)
             {
-                if (groupIndex != 0)
+                if (canShiftUp)
                 {
                     plugin.shiftGroup(groupIndex, true);
                 }
@@ -129,7 +149,7 @@ public class PurchaseProgressGroupPanel extends JPanel
             @Override
             public void actionPerformed(ActionEvent e)
             {
-                if (groupIndex != groupsSize - 1)
+                if (canShiftDown)
                 {
                     plugin.shiftGroup(groupIndex, false);
                 }
@@ -137,6 +157,16 @@ public class PurchaseProgressGroupPanel extends JPanel
         });
         popup.add(moveDown);
 
+        JMenuItem nest = new JMenuItem(new AbstractAction("Nest In Group")
+        {
+            @Override
+            public void actionPerformed(ActionEvent e)
+            {
+                plugin.nestGroup(group);
+            }
+        });
+        popup.add(nest);
+
         JMenuItem delete = new JMenuItem(new AbstractAction("Delete Group")
         {
             @Override
@@ -167,11 +197,11 @@ public class PurchaseProgressGroupPanel extends JPanel
         leftActions.setOpaque(false);
 
         // Group Name
-        JLabel groupName = new JLabel();
         groupName.setForeground(Color.WHITE);
         groupName.setBorder(new EmptyBorder(0, 5, 0, 0));
         groupName.setPreferredSize(new Dimension(140, 0));
         groupName.setText(group.getName());
+        groupName.setToolTipText(QuantityFormatter.formatNumber(group.getItemCount()) + (group.getItemCount() == 1 ? " item" : " items"));
 
         // Collapse
         JLabel collapseButton = new JLabel();
@@ -207,18 +237,8 @@ public class PurchaseProgressGroupPanel extends JPanel
             leftActions.add(collapseButton, BorderLayout.WEST);
 
             // Percent
-            JLabel percentLabel = new JLabel();
             percentLabel.setBorder(new EmptyBorder(0, 0, 0, 5));
-            percent = ((float) plugin.getValue() / totalCost) * 100;
-            if (totalCost == 0)
-            {
-                percent = 0;
-            }
-            else if (percent >= 100)
-            {
-                percent = 100;
-            }
-            percentLabel.setText(String.format("%.0f", percent) + "%");
+            updatePercent(plugin.getValue());
 
             topPanel.add(leftActions, BorderLayout.WEST);
             topPanel.add(percentLabel, BorderLayout.EAST);
@@ -298,18 +318,34 @@ public class PurchaseProgressGroupPanel extends JPanel
                 @Override
                 public void mouseReleased(MouseEvent e)
                 {
-                    final String[] itemNames = plugin.getItems().stream().map(PurchaseProgressItem::getName).toArray(String[]::new);
-                    Arrays.sort(itemNames, String.CASE_INSENSITIVE_ORDER);
-
-                    PurchaseProgressSelectionPanel selection = new PurchaseProgressSelectionPanel(panel, itemNames);
-                    selection.setOnOk(e1 -> {
-                        List<String> selectedItems = selection.getSelectedItems();
-                        if (!selectedItems.isEmpty())
+                    // Goals loaded moments ago may not have names yet, so all of them are filled in first
+                    plugin.hydrateGoals(() ->
+                    {
+                        // Selected names are mapped back to their items here rather than scanned for later
+                        final Map<String, PurchaseProgressItem> itemsByName = new HashMap<>();
+                        for (PurchaseProgressItem item : plugin.getSnapshot().getItems())
                         {
-                            plugin.addItemsToGroup(group, selectedItems);
+                            itemsByName.putIfAbsent(item.getName(), item);
                         }
+
+                        final String[] itemNames = itemsByName.keySet().toArray(new String[0]);
+                        Arrays.sort(itemNames, String.CASE_INSENSITIVE_ORDER);
+
+                        PurchaseProgressSelectionPanel selection = new PurchaseProgressSelectionPanel(panel, itemNames);
+                        selection.setOnOk(e1 -> {
+                            List<PurchaseProgressItem> selectedItems = new ArrayList<>();
+                            for (String itemName : selection.getSelectedItems())
+                            {
+                                selectedItems.add(itemsByName.get(itemName));
+                            }
+
+                            if (!selectedItems.isEmpty())
+                            {
+                                plugin.addItemsToGroup(group, selectedItems);
+                            }
+                        });
+                        selection.show();
                     });
-                    selection.show();
                 }
 
                 @Override
@@ -345,6 +381,7 @@ public class PurchaseProgressGroupPanel extends JPanel
             for (PurchaseProgressItem item : group.getItems())
             {
                 PurchaseProgressGroupItemPanel itemPanel = new PurchaseProgressGroupItemPanel(plugin, group, item, config);
+                itemPanels.put(item.getItemId(), itemPanel);
 
                 if (index++ > 0)
                 {
@@ -361,7 +398,7 @@ public class PurchaseProgressGroupPanel extends JPanel
             // Bottom Panel
             if (totalCost != 0)
             {
-                PurchaseProgressTotalPanel totalPanel = new PurchaseProgressTotalPanel(plugin.getValue(), totalCost, ColorScheme.DARK_GRAY_COLOR);
+                totalPanel = new PurchaseProgressTotalPanel(plugin.getValue(), totalCost, ColorScheme.DARK_GRAY_COLOR, wealthTracker);
                 itemsPanel.add(createMarginWrapper(totalPanel), constraints);
             }
 
@@ -370,6 +407,133 @@ public class PurchaseProgressGroupPanel extends JPanel
         }
     }
 
+    // Called after construction and whenever the panel is reused at another position
+    void setPosition(int groupIndex, boolean canShiftUp, boolean canShiftDown)
+    {
+        this.groupIndex = groupIndex;
+        this.canShiftUp = canShiftUp;
+        this.canShiftDown = canShiftDown;
+    }
+
+    // Whether the panel's layout still matches the group, in which case only its numbers need refreshing
+    boolean canReuse(PurchaseProgressGroup current, PurchaseProgressConfig config)
+    {
+        return config.onlyTrackFirstItem() == onlyTrackFirstItem && sameLayout(group, collapsed, totalPanel != null, current);
+    }
+
+    // Whether the current group fits the rows laid out for the shown one, collapsed or not and with or without a total row
+    static boolean sameLayout(PurchaseProgressGroup shown, boolean collapsed, boolean shownTotal, PurchaseProgressGroup current)
+    {
+        return current.isCollapsed() == collapsed
+                && current.getDepth() == shown.getDepth()
+                && Objects.equals(getParentName(current), getParentName(shown))
+                && sameItems(current.getItems(), shown.getItems())
+                && (collapsed || (current.getTotalCost() != 0) == shownTotal);
+    }
+
+    // Rows are keyed by item id and take the newest snapshot copy on update, so only the order of ids matters
+    private static boolean sameItems(List<PurchaseProgressItem> items, List<PurchaseProgressItem> shownItems)
+    {
+        if (items.size() != shownItems.size())
+        {
+            return false;
+        }
+
+        for (int i = 0; i < items.size(); i++)
+        {
+            if (items.get(i).getItemId() != shownItems.get(i).getItemId())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void update(PurchaseProgressGroup current, long value)
+    {
+        group = current;
+        totalCost = current.getTotalCost();
+        groupName.setToolTipText(QuantityFormatter.formatNumber(current.getItemCount()) + (current.getItemCount() == 1 ? " item" : " items"));
+
+        if (collapsed)
+        {
+            updatePercent(value);
+        }
+        else
+        {
+            for (PurchaseProgressItem item : current.getItems())
+            {
+                itemPanels.get(item.getItemId()).update(item, value);
+            }
+
+            if (totalPanel != null)
+            {
+                totalPanel.update(value, totalCost);
+            }
+        }
+        repaint();
+    }
+
+    private static String getParentName(PurchaseProgressGroup group)
+    {
+        return group.getParent() == null ? null : group.getParent().getName();
+    }
+
+    // Returns false when the change needs the group rebuilt, such as the total appearing or disappearing
+    boolean updateItems(Set<Integer> changedItemIds, long value, PurchaseProgressGroup current)
+    {
+        final long newTotalCost = current.getTotalCost();
+
+        if (!collapsed && (newTotalCost == 0) != (totalPanel == null))
+        {
+            return false;
+        }
+
+        totalCost = newTotalCost;
+        group = current;
+
+        for (PurchaseProgressItem item : current.getItems())
+        {
+            PurchaseProgressGroupItemPanel itemPanel = itemPanels.get(item.getItemId());
+            if (itemPanel != null && changedItemIds.contains(item.getItemId()))
+            {
+                itemPanel.update(item, value);
+            }
+        }
+
+        if (collapsed)
+        {
+            updatePercent(value);
+            repaint();
+        }
+        else if (totalPanel != null)
+        {
+            totalPanel.update(value, totalCost);
+        }
+
+        return true;
+    }
+
+    String getGroupName()
+    {
+        return group.getName();
+    }
+
+    private void updatePercent(long value)
+    {
+        percent = ((float) value / totalCost) * 100;
+        if (totalCost == 0)
+        {
+            percent = 0;
+        }
+        else if (percent >= 100)
+        {
+            percent = 100;
+        }
+        percentLabel.setText(String.format("%.0f", percent) + "%");
+        percentLabel.setToolTipText(wealthTracker.getEtaText(value, totalCost));
+    }
+
     private boolean deleteConfirm()
     {
         int confirm = JOptionPane.showConfirmDialog(this,
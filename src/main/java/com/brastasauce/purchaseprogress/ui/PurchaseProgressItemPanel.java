@@ -26,7 +26,9 @@ package com.brastasauce.purchaseprogress.ui;
 
 import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import com.brastasauce.purchaseprogress.price.PriceHistory;
 import com.brastasauce.purchaseprogress.PurchaseProgressPlugin;
+import com.brastasauce.purchaseprogress.WealthTracker;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.util.ImageUtil;
 import net.runelite.client.util.QuantityFormatter;
@@ -56,11 +58,25 @@ public class PurchaseProgressItemPanel extends JPanel
     private static final ImageIcon SHIFT_DOWN_ICON;
     private static final ImageIcon SHIFT_DOWN_HOVER_ICON;
     private static final Dimension IMAGE_SIZE = new Dimension(32, 32);
+    private static final String TREND_UP = " \u25B2";
+    private static final String TREND_DOWN = " \u25BC";
 
     private PurchaseProgressConfig config;
+    // Frozen copy from the snapshot the row was last updated from
+    private PurchaseProgressItem item;
+    private final PriceHistory priceHistory;
+    private final WealthTracker wealthTracker;
+
+    private final JLabel itemImage = new JLabel();
+    private final JLabel itemName = new JLabel();
+    private final JLabel gePriceLabel = new JLabel();
+    private final JLabel progressLabel = new JLabel();
+    private final JLabel shiftUp = new JLabel(SHIFT_UP_ICON);
+    private final JLabel shiftDown = new JLabel(SHIFT_DOWN_ICON);
 
     private float percent;
     private int itemIndex;
+    private int itemsSize;
 
     static
     {
@@ -79,20 +95,15 @@ public class PurchaseProgressItemPanel extends JPanel
 
     PurchaseProgressItemPanel(PurchaseProgressPlugin plugin, PurchaseProgressItem item, PurchaseProgressConfig config)
     {
+        this.priceHistory = plugin.getPriceHistory();
+        this.wealthTracker = plugin.getWealthTracker();
         this.config = config;
+        this.item = item;
         setLayout(new BorderLayout(5, 0));
         setBorder(new EmptyBorder(5, 5, 5, 0));
 
-        itemIndex = plugin.getItems().indexOf(item);
-        int itemsSize = plugin.getItems().size();
-
         // Image
-        JLabel itemImage = new JLabel();
         itemImage.setPreferredSize(IMAGE_SIZE);
-        if (item.getImage() != null)
-        {
-            item.getImage().addTo(itemImage);
-        }
         add(itemImage, BorderLayout.LINE_START);
 
         // Item Details Panel
@@ -100,38 +111,25 @@ public class PurchaseProgressItemPanel extends JPanel
         rightPanel.setBackground(new Color(0, 0, 0, 0));
 
         // Item Name
-        JLabel itemName = new JLabel();
         itemName.setForeground(Color.WHITE);
         itemName.setMaximumSize(new Dimension(0, 0));
         itemName.setPreferredSize(new Dimension(0, 0));
-        itemName.setText(item.getName());
         rightPanel.add(itemName);
+        showDetails();
 
-        // GE Price
-        JLabel gePriceLabel = new JLabel();
-        if (item.getGePrice() > 0)
+        // Rows on screen get their name and icon ahead of the rest
+        if (!item.isHydrated())
         {
-            gePriceLabel.setText(QuantityFormatter.formatNumber(item.getGePrice()) + " gp");
-        }
-        else
-        {
-            gePriceLabel.setText("N/A");
+            plugin.getItemHydrator().prioritize(item);
         }
+
+        // GE Price
         gePriceLabel.setForeground(ColorScheme.GRAND_EXCHANGE_PRICE);
         rightPanel.add(gePriceLabel);
 
-        // Purchase Progress
-        JLabel progressLabel = new JLabel();
-        percent = ((float) plugin.getValue() / item.getGePrice()) * 100;
-        if (percent >= 100)
-        {
-            percent = 100;
-        }
-        if (!config.onlyTrackFirstItem() || itemIndex == 0)
-        {
-            progressLabel.setText(String.format("%.0f", percent) + "%");
-            rightPanel.add(progressLabel);
-        }
+        // Purchase Progress, hidden by setPosition when only the first item is tracked
+        updateLabels(plugin.getValue());
+        rightPanel.add(progressLabel);
 
         // Action Panel (Delete, Shift item)
         JPanel actionPanel = new JPanel(new BorderLayout());
@@ -171,14 +169,7 @@ public class PurchaseProgressItemPanel extends JPanel
         shiftItemPanel.setOpaque(false);
 
         // Shift item up
-        JLabel shiftUp = new JLabel(SHIFT_UP_ICON);
         shiftUp.setBorder(new EmptyBorder(0, 0, 0, 5));
-
-        if (itemIndex == 0)
-        {
-            shiftUp.setIcon(SHIFT_UP_HOVER_ICON);
-        }
-
         shiftUp.addMouseListener(new MouseAdapter()
         {
             @Override
@@ -208,14 +199,7 @@ public class PurchaseProgressItemPanel extends JPanel
         shiftItemPanel.add(shiftUp, BorderLayout.WEST);
 
         // Shift item down
-        JLabel shiftDown = new JLabel(SHIFT_DOWN_ICON);
         shiftDown.setBorder(new EmptyBorder(0, 0, 0, 5));
-
-        if (itemIndex == itemsSize - 1)
-        {
-            shiftDown.setIcon(SHIFT_DOWN_HOVER_ICON);
-        }
-
         shiftDown.addMouseListener(new MouseAdapter()
         {
             @Override
@@ -258,6 +242,63 @@ public class PurchaseProgressItemPanel extends JPanel
         return confirm == JOptionPane.YES_NO_OPTION;
     }
 
+    // Shows the name and icon once the item has been hydrated
+    private void showDetails()
+    {
+        if (item.getImage() != null)
+        {
+            item.getImage().addTo(itemImage);
+        }
+        itemName.setText(item.isHydrated() ? item.getName() : "Loading...");
+    }
+
+    // Called after construction and whenever the panel is reused at another position
+    void setPosition(int itemIndex, int itemsSize)
+    {
+        this.itemIndex = itemIndex;
+        this.itemsSize = itemsSize;
+
+        shiftUp.setIcon(itemIndex == 0 ? SHIFT_UP_HOVER_ICON : SHIFT_UP_ICON);
+        shiftDown.setIcon(itemIndex == itemsSize - 1 ? SHIFT_DOWN_HOVER_ICON : SHIFT_DOWN_ICON);
+        progressLabel.setVisible(!config.onlyTrackFirstItem() || itemIndex == 0);
+    }
+
+    // Takes the item from the newest snapshot, the name and icon are only set again once they have been filled in
+    void update(PurchaseProgressItem current, long value)
+    {
+        final boolean hydrated = current.isHydrated() && !item.isHydrated();
+        item = current;
+        if (hydrated)
+        {
+            showDetails();
+        }
+        updateLabels(value);
+        repaint();
+    }
+
+    private void updateLabels(long value)
+    {
+        if (item.getGePrice() > 0)
+        {
+            final int trend = priceHistory.getTrend(item.getItemId());
+            gePriceLabel.setText(QuantityFormatter.formatNumber(item.getGePrice()) + " gp" + (trend > 0 ? TREND_UP : trend < 0 ? TREND_DOWN : ""));
+            gePriceLabel.setToolTipText("Cheapest seen: " + QuantityFormatter.formatNumber(priceHistory.getLowestPrice(item.getItemId())) + " gp");
+        }
+        else
+        {
+            gePriceLabel.setText("N/A");
+            gePriceLabel.setToolTipText(null);
+        }
+
+        percent = ((float) value / item.getGePrice()) * 100;
+        if (percent >= 100)
+        {
+            percent = 100;
+        }
+        progressLabel.setText(String.format("%.0f", percent) + "%");
+        progressLabel.setToolTipText(wealthTracker.getEtaText(value, item.getGePrice()));
+    }
+
     @Override
     protected void paintComponent(Graphics g)
     {
@@ -25,12 +25,14 @@
 package com.brastasauce.purchaseprogress.ui;
 
 import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
+import com.brastasauce.purchaseprogress.data.GoalSnapshot;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
 import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
 import com.brastasauce.purchaseprogress.PurchaseProgressPlugin;
+import com.brastasauce.purchaseprogress.price.PriceProvider;
+import com.brastasauce.purchaseprogress.price.PriceRefreshScheduler;
 import com.google.inject.Inject;
 import net.runelite.client.callback.ClientThread;
-import net.runelite.client.config.RuneLiteConfig;
 import net.runelite.client.game.ItemManager;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.PluginPanel;
@@ -65,7 +67,11 @@ import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 
 public class PurchaseProgressPluginPanel extends PluginPanel
@@ -89,8 +95,9 @@ public class PurchaseProgressPluginPanel extends PluginPanel
     private final PurchaseProgressPlugin plugin;
     private final ClientThread clientThread;
     private final ItemManager itemManager;
-    private final RuneLiteConfig runeLiteConfig;
     private final PurchaseProgressConfig config;
+    private final PriceProvider priceProvider;
+    private final PriceRefreshScheduler refreshScheduler;
 
     private final CardLayout centerCard = new CardLayout();
     private final CardLayout searchCard = new CardLayout();
@@ -115,6 +122,13 @@ public class PurchaseProgressPluginPanel extends PluginPanel
 
     private final List<PurchaseProgressItem> searchItems = new ArrayList<>();
 
+    // Panels from the last rebuild, kept so price changes can be applied in place
+    private final List<PurchaseProgressGroupPanel> groupPanels = new ArrayList<>();
+    private int groupCount;
+    private final Map<Integer, PurchaseProgressItemPanel> itemPanels = new HashMap<>();
+    private PurchaseProgressTotalPanel totalCostPanel;
+    private final List<JPanel> rows = new ArrayList<>();
+
     static
     {
         final BufferedImage addImage = ImageUtil.loadImageResource(PurchaseProgressPluginPanel.class, "/add_icon.png");
@@ -135,14 +149,15 @@ public class PurchaseProgressPluginPanel extends PluginPanel
     }
 
     @Inject
-    PurchaseProgressPluginPanel(PurchaseProgressPlugin plugin, ClientThread clientThread, ItemManager itemManager, RuneLiteConfig runeLiteConfig, PurchaseProgressConfig config)
+    PurchaseProgressPluginPanel(PurchaseProgressPlugin plugin, ClientThread clientThread, ItemManager itemManager, PurchaseProgressConfig config, PriceProvider priceProvider, PriceRefreshScheduler refreshScheduler)
     {
         super(false);
         this.plugin = plugin;
         this.clientThread = clientThread;
         this.itemManager = itemManager;
-        this.runeLiteConfig = runeLiteConfig;
         this.config = config;
+        this.priceProvider = priceProvider;
+        this.refreshScheduler = refreshScheduler;
 
         setLayout(new BorderLayout());
 
@@ -403,7 +418,6 @@ public class PurchaseProgressPluginPanel extends PluginPanel
         searchCard.show(searchCenterPanel, RESULTS_PANEL);
 
         int count = 0;
-        boolean useActivelyTradedPrice = runeLiteConfig.useWikiItemPrices();
 
         // Add each result to items list
         for (ItemPrice item : results)
@@ -415,7 +429,7 @@ public class PurchaseProgressPluginPanel extends PluginPanel
 
             int itemId = item.getId();
             AsyncBufferedImage itemImage = itemManager.getImage(itemId);
-            int itemPrice = useActivelyTradedPrice ? itemManager.getWikiPrice(item) : item.getPrice();
+            int itemPrice = priceProvider.getPrice(itemId);
             searchItems.add(new PurchaseProgressItem(itemImage, item.getName(), itemId, itemPrice));
         }
 
@@ -443,60 +457,193 @@ public class PurchaseProgressPluginPanel extends PluginPanel
         });
     }
 
+    // Reconciles the rows with the model, reusing panels by group name and item id so that only changed labels are touched
     public void updateProgressPanels()
     {
-        progressItemsPanel.removeAll();
-
         updateValue();
 
-        constraints.gridy++;
-
-        int index = 0;
         long totalCost = 0;
+        final long progressValue = plugin.getValue();
+
+        // One snapshot for the whole layout, so positions and sizes agree with each other
+        final GoalSnapshot snapshot = plugin.getSnapshot();
+        final List<PurchaseProgressGroup> groups = snapshot.getGroups();
+        final List<PurchaseProgressItem> items = snapshot.getItems();
 
-        // Groups
-        for (PurchaseProgressGroup group : plugin.getGroups())
+        final Map<String, PurchaseProgressGroupPanel> shownGroupPanels = new HashMap<>();
+        for (PurchaseProgressGroupPanel groupPanel : groupPanels)
         {
-            PurchaseProgressGroupPanel panel = new PurchaseProgressGroupPanel(plugin, this, group, config);
+            shownGroupPanels.put(groupPanel.getGroupName(), groupPanel);
+        }
+        final Map<Integer, PurchaseProgressItemPanel> shownItemPanels = new HashMap<>(itemPanels);
+        groupPanels.clear();
+        itemPanels.clear();
+
+        final List<JPanel> newRows = new ArrayList<>();
+
+        // Groups, each followed by the groups nested in it unless it is collapsed
+        final Map<PurchaseProgressGroup, List<Integer>> children = new IdentityHashMap<>();
+        final List<Integer> topLevel = new ArrayList<>();
+        for (int groupIndex = 0; groupIndex < groups.size(); groupIndex++)
+        {
+            final PurchaseProgressGroup parent = groups.get(groupIndex).getParent();
+            (parent == null ? topLevel : children.computeIfAbsent(parent, k -> new ArrayList<>())).add(groupIndex);
+
+            if (parent == null)
+            {
+                totalCost += groups.get(groupIndex).getTotalCost();
+            }
+        }
 
-            if (index++ > 0)
+        addGroupPanels(groups, topLevel, children, shownGroupPanels, newRows, progressValue);
+        groupCount = groups.size();
+
+        // Individual items
+        for (int itemIndex = 0; itemIndex < items.size(); itemIndex++)
+        {
+            PurchaseProgressItem item = items.get(itemIndex);
+            PurchaseProgressItemPanel panel = shownItemPanels.get(item.getItemId());
+            if (panel == null)
             {
-                progressItemsPanel.add(createMarginWrapper(panel), constraints);
+                panel = new PurchaseProgressItemPanel(plugin, item, config);
             }
             else
             {
-                progressItemsPanel.add(panel, constraints);
+                panel.update(item, progressValue);
             }
+            panel.setPosition(itemIndex, items.size());
+            itemPanels.put(item.getItemId(), panel);
+            newRows.add(panel);
 
-            totalCost += panel.getTotalCost();
-            constraints.gridy++;
+            totalCost += item.getGePrice();
         }
 
-        // Individual items
-        for (PurchaseProgressItem item : plugin.getItems())
+        if (totalCost == 0)
+        {
+            totalCostPanel = null;
+        }
+        else if (totalCostPanel == null)
         {
-            PurchaseProgressItemPanel panel = new PurchaseProgressItemPanel(plugin, item, config);
+            totalCostPanel = new PurchaseProgressTotalPanel(progressValue, totalCost, ColorScheme.DARKER_GRAY_COLOR, plugin.getWealthTracker());
+        }
+        else
+        {
+            totalCostPanel.update(progressValue, totalCost);
+        }
+
+        if (totalCostPanel != null)
+        {
+            newRows.add(totalCostPanel);
+        }
+
+        // Same rows in the same order, the labels have already been updated in place
+        if (newRows.equals(rows))
+        {
+            return;
+        }
+
+        rows.clear();
+        rows.addAll(newRows);
+
+        progressItemsPanel.removeAll();
+        constraints.gridy++;
+
+        for (int index = 0; index < rows.size(); index++)
+        {
+            progressItemsPanel.add(index > 0 ? createMarginWrapper(rows.get(index)) : rows.get(index), constraints);
+            constraints.gridy++;
+        }
+
+        validate();
+    }
 
-            if (index++ > 0)
+    // Lays out the groups depth first, reusing the shown panel of a group when its layout still fits
+    private void addGroupPanels(List<PurchaseProgressGroup> groups, List<Integer> siblings, Map<PurchaseProgressGroup, List<Integer>> children,
+                                Map<String, PurchaseProgressGroupPanel> shownGroupPanels, List<JPanel> newRows, long progressValue)
+    {
+        for (int position = 0; position < siblings.size(); position++)
+        {
+            final int groupIndex = siblings.get(position);
+            final PurchaseProgressGroup group = groups.get(groupIndex);
+            PurchaseProgressGroupPanel panel = shownGroupPanels.get(group.getName());
+            if (panel == null || !panel.canReuse(group, config))
             {
-                progressItemsPanel.add(createMarginWrapper(panel), constraints);
+                panel = new PurchaseProgressGroupPanel(plugin, this, group, config);
             }
             else
             {
-                progressItemsPanel.add(panel, constraints);
+                panel.update(group, progressValue);
+            }
+            panel.setPosition(groupIndex, position != 0, position != siblings.size() - 1);
+            groupPanels.add(panel);
+            newRows.add(panel);
+
+            final List<Integer> nested = children.get(group);
+            if (nested != null && !group.isCollapsed())
+            {
+                addGroupPanels(groups, nested, children, shownGroupPanels, newRows, progressValue);
+            }
+        }
+    }
+
+    // Applies a price refresh or filled in names to the rows of the changed items and the totals containing them
+    public void updateItems(Set<Integer> changedItemIds)
+    {
+        final GoalSnapshot snapshot = plugin.getSnapshot();
+
+        // Rows no longer match the model, nothing to patch in place
+        if (groupCount != snapshot.getGroups().size() || itemPanels.size() != snapshot.getItems().size())
+        {
+            updateProgressPanels();
+            return;
+        }
+
+        final long progressValue = plugin.getValue();
+        long totalCost = 0;
+
+        // Group totals are cached in the snapshot, a panel only reads its own
+        for (PurchaseProgressGroupPanel groupPanel : groupPanels)
+        {
+            final PurchaseProgressGroup group = snapshot.getGroups().get(groupPanel.getGroupIndex());
+            if (!group.getName().equals(groupPanel.getGroupName()) || !groupPanel.updateItems(changedItemIds, progressValue, group))
+            {
+                updateProgressPanels();
+                return;
             }
+        }
 
+        for (PurchaseProgressGroup group : snapshot.getGroups())
+        {
+            if (group.getParent() == null)
+            {
+                totalCost += group.getTotalCost();
+            }
+        }
+
+        for (PurchaseProgressItem item : snapshot.getItems())
+        {
             totalCost += item.getGePrice();
-            constraints.gridy++;
         }
 
-        if (totalCost != 0)
+        if ((totalCost == 0) != (totalCostPanel == null))
         {
-            PurchaseProgressTotalPanel totalCostPanel = new PurchaseProgressTotalPanel(plugin.getValue(), totalCost, ColorScheme.DARKER_GRAY_COLOR);
-            progressItemsPanel.add(createMarginWrapper(totalCostPanel), constraints);
+            updateProgressPanels();
+            return;
         }
 
-        validate();
+        for (PurchaseProgressItem item : snapshot.getItems())
+        {
+            PurchaseProgressItemPanel panel = itemPanels.get(item.getItemId());
+            if (panel != null && changedItemIds.contains(item.getItemId()))
+            {
+                panel.update(item, progressValue);
+            }
+        }
+
+        if (totalCostPanel != null)
+        {
+            totalCostPanel.update(progressValue, totalCost);
+        }
     }
 
     private void updateValue()
@@ -512,7 +659,19 @@ public class PurchaseProgressPluginPanel extends PluginPanel
         }
 
         // Hide sort button if no items
-        sortButton.setVisible(!plugin.getItems().isEmpty());
+        sortButton.setVisible(!plugin.getSnapshot().getItems().isEmpty());
+    }
+
+    @Override
+    public void onActivate()
+    {
+        refreshScheduler.setPanelVisible(true);
+    }
+
+    @Override
+    public void onDeactivate()
+    {
+        refreshScheduler.setPanelVisible(false);
     }
 
     public void containsItemWarning()
@@ -24,6 +24,7 @@
  */
 package com.brastasauce.purchaseprogress.ui;
 
+import com.brastasauce.purchaseprogress.WealthTracker;
 import net.runelite.client.util.QuantityFormatter;
 
 import javax.swing.JLabel;
@@ -37,34 +38,51 @@ public class PurchaseProgressTotalPanel extends JPanel
 {
     private float percent;
     private final Color background;
+    private final WealthTracker wealthTracker;
 
-    PurchaseProgressTotalPanel(long value, long totalCost, Color background)
+    private final JLabel totalLabel = new JLabel();
+    private final JLabel percentLabel = new JLabel();
+
+    PurchaseProgressTotalPanel(long value, long totalCost, Color background, WealthTracker wealthTracker)
     {
         setLayout(new BorderLayout());
         setBorder(new EmptyBorder(5, 5, 5, 0));
 
         this.background = background;
+        this.wealthTracker = wealthTracker;
 
         JPanel totalPanel = new JPanel(new BorderLayout());
         totalPanel.setBackground(new Color(0, 0, 0, 0));
         totalPanel.setOpaque(false);
 
-        JLabel totalLabel = new JLabel();
         totalLabel.setForeground(new Color(255, 202, 36));
-        totalLabel.setText("Total: " + QuantityFormatter.formatNumber(totalCost) + " gp");
         totalPanel.add(totalLabel, BorderLayout.WEST);
 
-        JLabel percentLabel = new JLabel();
         percentLabel.setBorder(new EmptyBorder(0, 0, 0, 5));
+        totalPanel.add(percentLabel, BorderLayout.EAST);
+
+        updateLabels(value, totalCost);
+
+        add(totalPanel, BorderLayout.CENTER);
+    }
+
+    void update(long value, long totalCost)
+    {
+        updateLabels(value, totalCost);
+        repaint();
+    }
+
+    private void updateLabels(long value, long totalCost)
+    {
+        totalLabel.setText("Total: " + QuantityFormatter.formatNumber(totalCost) + " gp");
+
         percent = ((float) value / totalCost) * 100;
         if (percent >= 100)
         {
             percent = 100;
         }
         percentLabel.setText(String.format("%.0f", percent) + "%");
-        totalPanel.add(percentLabel, BorderLayout.EAST);
-
-        add(totalPanel, BorderLayout.CENTER);
+        percentLabel.setToolTipText(wealthTracker.getEtaText(value, totalCost));
     }
 
     @Override
@@ -0,0 +1,68 @@
+package com.brastasauce.purchaseprogress;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BankEventCoalescerTest
+{
+	@Test
+	public void burstIsValuedOncePerContainer()
+	{
+		final BankEventCoalescer coalescer = new BankEventCoalescer();
+		for (int i = 0; i < 10; i++)
+		{
+			coalescer.containerChanged(ContainerType.BANK);
+		}
+		coalescer.containerChanged(ContainerType.INVENTORY);
+
+		final int mask = coalescer.pollValuation();
+		assertEquals(1 << ContainerType.BANK.ordinal() | 1 << ContainerType.INVENTORY.ordinal(), mask);
+		assertEquals(9, coalescer.getMergedEvents());
+
+		// Nothing new since the last tick
+		assertEquals(0, coalescer.pollValuation());
+	}
+
+	@Test
+	public void saveWaitsForQuietTicks()
+	{
+		final BankEventCoalescer coalescer = new BankEventCoalescer();
+		coalescer.valueChanged();
+		assertFalse(coalescer.pollSave());
+
+		// Another change restarts the countdown
+		coalescer.valueChanged();
+		assertFalse(coalescer.pollSave());
+
+		int ticks = 0;
+		while (!coalescer.pollSave())
+		{
+			ticks++;
+			assertTrue("Save never became due", ticks < 100);
+		}
+		assertEquals(4, ticks);
+		assertEquals(1, coalescer.getMergedSaves());
+
+		// Written once, no further saves until the value changes again
+		assertFalse(coalescer.pollSave());
+	}
+
+	@Test
+	public void flushWritesAPendingSave()
+	{
+		final BankEventCoalescer coalescer = new BankEventCoalescer();
+		assertFalse(coalescer.flushSave());
+
+		coalescer.valueChanged();
+		assertTrue(coalescer.flushSave());
+		assertFalse(coalescer.flushSave());
+
+		coalescer.valueChanged();
+		coalescer.pollSave();
+		assertTrue(coalescer.flushSave());
+		assertFalse(coalescer.pollSave());
+	}
+}
@@ -0,0 +1,168 @@
+package com.brastasauce.purchaseprogress;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ContainerValuationTest
+{
+	// Every item is worth ten times its id
+	private static final IntUnaryOperator PRICE = itemId -> itemId * 10;
+
+	@Test
+	public void tabValuesFromTheFirstSnapshot()
+	{
+		final ContainerValuation valuation = new ContainerValuation();
+		// Tab 1 holds slots 0-1, tab 2 slot 2, the rest is untabbed
+		assertTrue(valuation.update(bank(new int[]{2, 1}, ids(1, 2, 3, 4), quantities(1, 1, 1, 1)), PRICE));
+
+		assertEquals(30, valuation.getTabValue(1));
+		assertEquals(30, valuation.getTabValue(2));
+		assertEquals(100, valuation.getItemsValue());
+		assertEquals(100, valuation.getTabValue(0));
+	}
+
+	@Test
+	public void slotDeltasOnlyMoveTheirOwnTab()
+	{
+		final ContainerValuation valuation = new ContainerValuation();
+		valuation.update(bank(new int[]{2, 1}, ids(1, 2, 3, 4), quantities(1, 1, 1, 1)), PRICE);
+
+		// Last slot of tab 1 and the untabbed slot change, tab 2 in between doesn't
+		assertTrue(valuation.update(bank(new int[]{2, 1}, ids(1, 5, 3, 6), quantities(1, 2, 1, 3)), PRICE));
+		assertEquals(110, valuation.getTabValue(1));
+		assertEquals(30, valuation.getTabValue(2));
+		assertEquals(320, valuation.getItemsValue());
+
+		assertFalse(valuation.update(bank(new int[]{2, 1}, ids(1, 5, 3, 6), quantities(1, 2, 1, 3)), PRICE));
+		assertEquals(320, valuation.getItemsValue());
+	}
+
+	@Test
+	public void changedTabLayoutResumsEveryTab()
+	{
+		final ContainerValuation valuation = new ContainerValuation();
+		valuation.update(bank(new int[]{2, 1}, ids(1, 2, 3, 4), quantities(1, 1, 1, 1)), PRICE);
+
+		// Same slots, the boundary moved so slot 1 now belongs to tab 2
+		assertTrue(valuation.update(bank(new int[]{1, 2}, ids(1, 2, 3, 4), quantities(1, 1, 1, 1)), PRICE));
+		assertEquals(10, valuation.getTabValue(1));
+		assertEquals(50, valuation.getTabValue(2));
+		assertEquals(100, valuation.getItemsValue());
+	}
+
+	@Test
+	public void repriceUsesTheNewPrices()
+	{
+		final ContainerValuation valuation = new ContainerValuation();
+		valuation.update(bank(new int[]{1}, ids(1, 2), quantities(2, 3)), PRICE);
+
+		valuation.reprice(itemId -> itemId);
+		assertEquals(2, valuation.getTabValue(1));
+		assertEquals(8, valuation.getItemsValue());
+	}
+
+	@Test
+	public void goldIsCountedApartFromItems()
+	{
+		final ContainerValuation valuation = new ContainerValuation();
+		valuation.update(bank(new int[0], ids(995, 13204, 4151), quantities(500, 2, 1)), itemId -> itemId == 4151 ? 1_000 : 0);
+
+		assertEquals(2_500, valuation.getGold());
+		assertEquals(1_000, valuation.getItemsValue());
+	}
+
+	@Test
+	public void goldAcrossSlotsDoesNotOverflow()
+	{
+		final ContainerValuation valuation = new ContainerValuation();
+		// A Grand Exchange snapshot can hold a full coin stack in every offer slot
+		final int[] itemIds = new int[8];
+		final int[] quantities = new int[8];
+		Arrays.fill(itemIds, 995);
+		Arrays.fill(quantities, Integer.MAX_VALUE);
+		valuation.update(new ContainerSnapshot(ContainerType.GRAND_EXCHANGE, itemIds, quantities, new int[0]), itemId -> 0);
+		assertEquals(8L * Integer.MAX_VALUE, valuation.getGold());
+
+		// A single slot changing moves the total by its own difference
+		quantities[3] = 1;
+		itemIds[5] = 13204;
+		quantities[5] = 2;
+		valuation.update(new ContainerSnapshot(ContainerType.GRAND_EXCHANGE, itemIds, quantities, new int[0]), itemId -> 0);
+		assertEquals(6L * Integer.MAX_VALUE + 1 + 2_000, valuation.getGold());
+	}
+
+	@Test
+	public void deltasMatchARecountUnderRandomEdits()
+	{
+		final Random random = new Random(7);
+		final ContainerValuation valuation = new ContainerValuation();
+		int[] tabSizes = {3, 0, 4};
+
+		for (int round = 0; round < 2_000; round++)
+		{
+			if (round % 500 == 0)
+			{
+				tabSizes = new int[]{random.nextInt(5), random.nextInt(5)};
+			}
+
+			final int[] itemIds = new int[12];
+			final int[] quantities = new int[12];
+			for (int i = 0; i < itemIds.length; i++)
+			{
+				itemIds[i] = random.nextInt(5) + 1;
+				quantities[i] = random.nextInt(3);
+			}
+			valuation.update(bank(tabSizes, itemIds, quantities), PRICE);
+
+			// Recount of every tab from scratch
+			final long[] tabValues = new long[tabSizes.length + 1];
+			int start = 0;
+			for (int tab = 1; tab <= tabSizes.length; tab++)
+			{
+				final int end = Math.min(start + tabSizes[tab - 1], itemIds.length);
+				for (int i = start; i < end; i++)
+				{
+					tabValues[tab] += PRICE.applyAsInt(itemIds[i]) * (long) quantities[i];
+				}
+				start = end;
+			}
+			for (int i = start; i < itemIds.length; i++)
+			{
+				tabValues[0] += PRICE.applyAsInt(itemIds[i]) * (long) quantities[i];
+			}
+
+			long total = 0;
+			for (int tab = 0; tab < tabValues.length; tab++)
+			{
+				total += tabValues[tab];
+				if (tab > 0)
+				{
+					assertEquals(tabValues[tab], valuation.getTabValue(tab));
+				}
+			}
+			assertEquals(total, valuation.getItemsValue());
+		}
+	}
+
+	private static ContainerSnapshot bank(int[] tabSizes, int[] itemIds, int[] quantities)
+	{
+		return new ContainerSnapshot(ContainerType.BANK, itemIds, quantities, tabSizes);
+	}
+
+	private static int[] ids(int... itemIds)
+	{
+		return itemIds;
+	}
+
+	private static int[] quantities(int... quantities)
+	{
+		return quantities;
+	}
+}
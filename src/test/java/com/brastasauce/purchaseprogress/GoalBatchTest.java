@@ -0,0 +1,89 @@
+package com.brastasauce.purchaseprogress;
+
+import com.brastasauce.purchaseprogress.data.PurchaseProgressDataManager;
+import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
+import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import org.junit.Test;
+
+import java.io.File;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GoalBatchTest
+{
+	@Test
+	public void rejectedBatchRestoresItemsAndGroups() throws Exception
+	{
+		final PurchaseProgressItem whip = new PurchaseProgressItem(null, null, 4151, 1_500_000);
+		final PurchaseProgressGroup gear = new PurchaseProgressGroup("Gear", new ArrayList<>(Arrays.asList(new PurchaseProgressItem(null, null, 11_802, 100))));
+		final PurchaseProgressGroup melee = new PurchaseProgressGroup("Melee", new ArrayList<>());
+		final PurchaseProgressPlugin plugin = plugin(new ArrayList<>(Arrays.asList(whip)), new ArrayList<>(Arrays.asList(gear, melee)));
+
+		// Every edit but the last one applies, 11802 is already a goal in Gear
+		final GoalBatch batch = new GoalBatch()
+			.addItem(new PurchaseProgressItem(null, null, 22_325, 10))
+			.addItemsToGroup(melee, Arrays.asList(whip))
+			.nestGroup(melee, "Gear")
+			.renameGroup(gear, "Armour")
+			.addGroup("Skilling")
+			.addItem(new PurchaseProgressItem(null, null, 11_802, 100));
+
+		assertFalse(plugin.applyBatch(batch));
+
+		final List<PurchaseProgressItem> items = plugin.getItems();
+		assertEquals(1, items.size());
+		assertEquals(4151, items.get(0).getItemId());
+
+		final List<PurchaseProgressGroup> groups = plugin.getGroups();
+		assertEquals(2, groups.size());
+		assertEquals("Gear", groups.get(0).getName());
+		assertEquals(100, groups.get(0).getTotalCost());
+		assertEquals("Melee", groups.get(1).getName());
+		assertTrue(groups.get(1).getItems().isEmpty());
+		assertNull(groups.get(1).getParent());
+
+		final GoalIndex index = plugin.getGoalIndex();
+		assertFalse(index.contains(22_325));
+		assertEquals(GoalIndex.UNGROUPED, index.getGroup(4151));
+		assertEquals(0, index.getGroup(11_802));
+		assertEquals(-1, index.getGroupIndex("Armour"));
+		assertFalse(index.containsGroup("Skilling"));
+
+		// The restored goals are live again, not the frozen snapshot copies
+		items.get(0).setGePrice(1_400_000);
+		groups.get(0).setName("Armour");
+	}
+
+	@Test
+	public void rejectedSingleEditChangesNothing() throws Exception
+	{
+		final PurchaseProgressPlugin plugin = plugin(new ArrayList<>(Arrays.asList(new PurchaseProgressItem(null, null, 4151, 0))), new ArrayList<>());
+
+		assertFalse(plugin.applyBatch(new GoalBatch().addItem(new PurchaseProgressItem(null, null, 4151, 0))));
+		assertEquals(1, plugin.getItems().size());
+		assertEquals(0, plugin.getGoalIndex().getPosition(4151));
+	}
+
+	// Loaded goals as startUp leaves them, with a data manager that only needs to track the batch
+	private static PurchaseProgressPlugin plugin(List<PurchaseProgressItem> items, List<PurchaseProgressGroup> groups) throws Exception
+	{
+		final PurchaseProgressPlugin plugin = new PurchaseProgressPlugin();
+		plugin.setItems(items);
+		plugin.setGroups(groups);
+		PurchaseProgressGroup.recalculateTotals(groups);
+		plugin.getGoalIndex().rebuild(items, groups);
+		plugin.publishSnapshot();
+
+		final Field dataManager = PurchaseProgressPlugin.class.getDeclaredField("dataManager");
+		dataManager.setAccessible(true);
+		dataManager.set(plugin, new PurchaseProgressDataManager(plugin, null, null, null, null, null, new PurchaseProgressConfig() {}, new File("goals.journal")));
+		return plugin;
+	}
+}
@@ -0,0 +1,103 @@
+package com.brastasauce.purchaseprogress;
+
+import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
+import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GoalIndexTest
+{
+	@Test
+	public void rebuildIndexesItemsAndGroups()
+	{
+		final GoalIndex index = new GoalIndex();
+		index.rebuild(items(4151, 11_802), new ArrayList<>(Arrays.asList(
+			new PurchaseProgressGroup("Gear", items(22_325)),
+			new PurchaseProgressGroup("Skilling", items(1, 2, 3)))));
+
+		assertTrue(index.contains(11_802));
+		assertEquals(GoalIndex.UNGROUPED, index.getGroup(11_802));
+		assertEquals(1, index.getPosition(11_802));
+
+		assertEquals(1, index.getGroup(3));
+		assertEquals(2, index.getPosition(3));
+		assertEquals(0, index.getGroupIndex("Gear"));
+		assertEquals(1, index.getGroupIndex("Skilling"));
+
+		assertFalse(index.contains(995));
+		assertEquals(GoalIndex.MISSING, index.getGroup(995));
+		assertEquals(-1, index.getPosition(995));
+		assertEquals(-1, index.getGroupIndex("Missing"));
+	}
+
+	@Test
+	public void reindexFollowsARemovedItem()
+	{
+		final List<PurchaseProgressItem> items = items(1, 2, 3, 4);
+		final GoalIndex index = new GoalIndex();
+		index.rebuild(items, new ArrayList<>());
+
+		items.remove(1);
+		index.removeItem(2);
+		index.reindexItems(GoalIndex.UNGROUPED, 1);
+
+		assertFalse(index.contains(2));
+		assertEquals(0, index.getPosition(1));
+		assertEquals(1, index.getPosition(3));
+		assertEquals(2, index.getPosition(4));
+	}
+
+	@Test
+	public void reindexFollowsAMovedGroup()
+	{
+		final List<PurchaseProgressGroup> groups = new ArrayList<>(Arrays.asList(
+			new PurchaseProgressGroup("A", items(1)),
+			new PurchaseProgressGroup("B", items(2)),
+			new PurchaseProgressGroup("C", items(3))));
+		final GoalIndex index = new GoalIndex();
+		index.rebuild(new ArrayList<>(), groups);
+
+		// C moves to the front, every group from there on shifts
+		groups.add(0, groups.remove(2));
+		index.reindexGroups(0);
+
+		assertEquals(0, index.getGroupIndex("C"));
+		assertEquals(2, index.getGroupIndex("B"));
+		assertEquals(0, index.getGroup(3));
+		assertEquals(1, index.getGroup(1));
+		assertEquals(2, index.getGroup(2));
+	}
+
+	@Test
+	public void renameAndRemoveGroup()
+	{
+		final GoalIndex index = new GoalIndex();
+		index.rebuild(new ArrayList<>(), new ArrayList<>(Arrays.asList(
+			new PurchaseProgressGroup("A", items(1)),
+			new PurchaseProgressGroup("B", items(2)))));
+
+		index.renameGroup("A", "Gear");
+		assertFalse(index.containsGroup("A"));
+		assertEquals(0, index.getGroupIndex("Gear"));
+
+		index.removeGroup("B");
+		assertFalse(index.containsGroup("B"));
+	}
+
+	private static List<PurchaseProgressItem> items(int... itemIds)
+	{
+		final List<PurchaseProgressItem> items = new ArrayList<>();
+		for (int itemId : itemIds)
+		{
+			items.add(new PurchaseProgressItem(null, null, itemId, 0));
+		}
+		return items;
+	}
+}
@@ -0,0 +1,105 @@
+package com.brastasauce.purchaseprogress;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IntIntMapTest
+{
+	@Test
+	public void putGetAndOverwrite()
+	{
+		final IntIntMap map = new IntIntMap();
+		map.put(4151, 1);
+		map.put(11802, 2);
+		map.put(4151, 3);
+
+		assertEquals(2, map.size());
+		assertEquals(3, map.get(4151, -1));
+		assertEquals(2, map.get(11802, -1));
+		assertEquals(-1, map.get(995, -1));
+	}
+
+	@Test
+	public void removeKeepsProbeChainsIntact()
+	{
+		// Enough keys in a small table that many share probe chains, every removal has to shift the chain back
+		final IntIntMap map = new IntIntMap(4);
+		for (int key = 0; key < 64; key++)
+		{
+			map.put(key * 16, key);
+		}
+
+		for (int key = 0; key < 64; key += 3)
+		{
+			map.remove(key * 16);
+		}
+
+		for (int key = 0; key < 64; key++)
+		{
+			if (key % 3 == 0)
+			{
+				assertFalse(map.containsKey(key * 16));
+			}
+			else
+			{
+				assertEquals(key, map.get(key * 16, -1));
+			}
+		}
+		assertEquals(64 - 22, map.size());
+	}
+
+	@Test
+	public void addRemovesEntriesThatReachZero()
+	{
+		final IntIntMap map = new IntIntMap();
+		map.add(995, 100);
+		map.add(995, -40);
+		assertEquals(60, map.get(995, 0));
+
+		map.add(995, -60);
+		assertFalse(map.containsKey(995));
+		assertEquals(0, map.size());
+
+		map.add(13204, 0);
+		assertFalse(map.containsKey(13204));
+	}
+
+	@Test
+	public void matchesHashMapUnderRandomEdits()
+	{
+		final Random random = new Random(42);
+		final IntIntMap map = new IntIntMap();
+		final Map<Integer, Integer> expected = new HashMap<>();
+
+		for (int i = 0; i < 100_000; i++)
+		{
+			final int key = random.nextInt(512);
+			switch (random.nextInt(3))
+			{
+				case 0:
+					map.put(key, i);
+					expected.put(key, i);
+					break;
+				case 1:
+					map.remove(key);
+					expected.remove(key);
+					break;
+				default:
+					assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+			}
+		}
+
+		assertEquals(expected.size(), map.size());
+		for (int key : map.keys())
+		{
+			assertTrue(expected.containsKey(key));
+		}
+	}
+}
@@ -0,0 +1,121 @@
+package com.brastasauce.purchaseprogress;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WealthTrackerTest
+{
+	private static final double DELTA = 1e-6;
+
+	@Test
+	public void noRateUntilEnoughSamples() throws IOException
+	{
+		final WealthTracker tracker = read(samples(0, 1_000_000L, 2_000_000L));
+		assertEquals(0, tracker.getIncomeRate(), DELTA);
+		assertNull(tracker.getEtaText(0, 10_000_000L));
+	}
+
+	@Test
+	public void linearIncomeGivesItsRate() throws IOException
+	{
+		// 100k an hour, the decay weighting doesn't bend a straight line
+		final long[] values = new long[24];
+		for (int hour = 0; hour < values.length; hour++)
+		{
+			values[hour] = 5_000_000L + hour * 100_000L;
+		}
+
+		final WealthTracker tracker = read(samples(0, values));
+		assertEquals(100_000, tracker.getIncomeRate(), DELTA);
+	}
+
+	@Test
+	public void etaText() throws IOException
+	{
+		final WealthTracker tracker = read(samples(0, 0, 100_000L, 200_000L, 300_000L));
+
+		assertNull(tracker.getEtaText(1_000, 1_000));
+		// Costs sit between whole minutes so rounding in the fit can't tip the estimate over one
+		assertEquals("Affordable in about 31m", tracker.getEtaText(0, 50_500));
+		assertEquals("Affordable in about 2h 31m", tracker.getEtaText(0, 251_000));
+		assertEquals("Affordable in about 1d 1h", tracker.getEtaText(0, 2_500_500));
+	}
+
+	@Test
+	public void losingValueGivesNoEta() throws IOException
+	{
+		final WealthTracker tracker = read(samples(0, 300_000L, 200_000L, 100_000L));
+		assertTrue(tracker.getIncomeRate() < 0);
+		assertNull(tracker.getEtaText(0, 1_000_000));
+	}
+
+	@Test
+	public void updateInsideTheHourRefitsLikeAReload() throws IOException
+	{
+		// Latest sample a minute ago, so the next record replaces it rather than adding one
+		final int now = (int) TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+		final WealthTracker tracker = read(samples(now - 1 - 4 * 60, 0, 100_000L, 200_000L, 300_000L, 400_000L));
+		tracker.record(900_000L);
+		assertTrue(tracker.isDirty());
+
+		final WealthTracker expected = read(samples(now - 1 - 4 * 60, 0, 100_000L, 200_000L, 300_000L, 900_000L));
+		assertEquals(expected.getIncomeRate(), tracker.getIncomeRate(), DELTA);
+
+		final WealthTracker reloaded = read(write(tracker));
+		assertEquals(tracker.getIncomeRate(), reloaded.getIncomeRate(), DELTA);
+	}
+
+	// Version 1 layout, one sample an hour starting at the given minute
+	private static byte[] samples(int start, long... values) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			out.writeByte(1);
+			out.writeShort(values.length);
+			for (int i = 0; i < values.length; i++)
+			{
+				if (i == 0)
+				{
+					out.writeInt(start);
+				}
+				else
+				{
+					out.writeShort(60);
+				}
+				out.writeLong(values[i]);
+			}
+		}
+		return bytes.toByteArray();
+	}
+
+	private static WealthTracker read(byte[] bytes) throws IOException
+	{
+		final WealthTracker tracker = new WealthTracker();
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes)))
+		{
+			tracker.read(in);
+		}
+		return tracker;
+	}
+
+	private static byte[] write(WealthTracker tracker) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			tracker.write(out);
+		}
+		return bytes.toByteArray();
+	}
+}
@@ -0,0 +1,171 @@
+package com.brastasauce.purchaseprogress.data;
+
+import com.google.gson.stream.JsonReader;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.IntFunction;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class GoalCodecTest
+{
+	private static final IntFunction<PurchaseProgressItem> ITEM_FACTORY = itemId -> new PurchaseProgressItem(null, null, itemId, 0);
+
+	@Test
+	public void itemsRoundTrip() throws IOException
+	{
+		// Descending ids need the negative zigzag deltas
+		final List<PurchaseProgressItem> items = items(26_382, 4151, 11_802, 11_802, 1);
+		final String encoded = GoalCodec.encodeItems(items);
+
+		assertFalse(GoalCodec.isLegacy(encoded));
+		assertEquals(ids(items), ids(GoalCodec.decodeItems(encoded, ITEM_FACTORY)));
+		assertTrue(GoalCodec.decodeItems(GoalCodec.encodeItems(new ArrayList<>()), ITEM_FACTORY).isEmpty());
+	}
+
+	@Test
+	public void groupsRoundTripWithParents() throws IOException
+	{
+		final PurchaseProgressGroup gear = new PurchaseProgressGroup("Gear", items(4151, 11_802));
+		final PurchaseProgressGroup melee = new PurchaseProgressGroup("Melee", true, items(22_325));
+		final PurchaseProgressGroup magic = new PurchaseProgressGroup("Magic ✨", items());
+		melee.linkParent(gear);
+		magic.linkParent(melee);
+
+		// Parents may come after their children in the list
+		final List<PurchaseProgressGroup> decoded = GoalCodec.decodeGroups(GoalCodec.encodeGroups(Arrays.asList(magic, gear, melee)), ITEM_FACTORY);
+
+		assertEquals(3, decoded.size());
+		assertEquals("Magic ✨", decoded.get(0).getName());
+		assertEquals("Gear", decoded.get(1).getName());
+		assertEquals("Melee", decoded.get(2).getName());
+
+		assertTrue(decoded.get(2).isCollapsed());
+		assertFalse(decoded.get(1).isCollapsed());
+		assertEquals(Arrays.asList(4151, 11_802), ids(decoded.get(1).getItems()));
+
+		assertSame(decoded.get(2), decoded.get(0).getParent());
+		assertSame(decoded.get(1), decoded.get(2).getParent());
+		assertNull(decoded.get(1).getParent());
+	}
+
+	@Test
+	public void readsTheGroupLayout() throws IOException
+	{
+		// Name, collapsed flag, parent position plus one, then the items
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(1);
+		out.write(2);
+		writeName(out, "Gear");
+		out.write(1);
+		out.write(0);
+		out.write(new byte[]{2, 0x2E, 0x41});
+		writeName(out, "Empty");
+		out.write(0);
+		out.write(1);
+		out.write(0);
+
+		final List<PurchaseProgressGroup> decoded = GoalCodec.decodeGroups(Base64.getEncoder().encodeToString(out.toByteArray()), ITEM_FACTORY);
+
+		assertEquals(2, decoded.size());
+		assertEquals("Gear", decoded.get(0).getName());
+		assertTrue(decoded.get(0).isCollapsed());
+		assertEquals(Arrays.asList(23, -10), ids(decoded.get(0).getItems()));
+		assertNull(decoded.get(0).getParent());
+		assertEquals("Empty", decoded.get(1).getName());
+		assertSame(decoded.get(0), decoded.get(1).getParent());
+	}
+
+	@Test
+	public void readsLegacyJson() throws IOException
+	{
+		final String items = "[4151,11802]";
+		final String groups = "[{\"name\":\"Gear\",\"collapsed\":true,\"items\":[22325]},{\"name\":\"Empty\",\"items\":[]}]";
+		assertTrue(GoalCodec.isLegacy(items));
+		assertTrue(GoalCodec.isLegacy(groups));
+
+		final PurchaseProgressItemAdapter itemAdapter = new PurchaseProgressItemAdapter(ITEM_FACTORY);
+		try (JsonReader in = new JsonReader(new StringReader(items)))
+		{
+			assertEquals(Arrays.asList(4151, 11_802), ids(itemAdapter.readList(in)));
+		}
+
+		try (JsonReader in = new JsonReader(new StringReader(groups)))
+		{
+			final List<PurchaseProgressGroup> decoded = new PurchaseProgressGroupAdapter(itemAdapter).readList(in);
+			assertEquals(2, decoded.size());
+			assertTrue(decoded.get(0).isCollapsed());
+			assertEquals(Arrays.asList(22_325), ids(decoded.get(0).getItems()));
+			assertFalse(decoded.get(1).isCollapsed());
+
+			// Legacy values are written back in the current encoding
+			assertEquals(ids(decoded.get(0).getItems()), ids(GoalCodec.decodeGroups(GoalCodec.encodeGroups(decoded), ITEM_FACTORY).get(0).getItems()));
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsUnknownVersion() throws IOException
+	{
+		GoalCodec.decodeItems(Base64.getEncoder().encodeToString(new byte[]{2, 0}), ITEM_FACTORY);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsTruncatedData() throws IOException
+	{
+		final String encoded = GoalCodec.encodeItems(items(4151, 11_802));
+		final byte[] bytes = Base64.getDecoder().decode(encoded);
+		GoalCodec.decodeItems(Base64.getEncoder().encodeToString(Arrays.copyOf(bytes, bytes.length - 1)), ITEM_FACTORY);
+	}
+
+	@Test(expected = IOException.class)
+	public void rejectsParentOutOfRange() throws IOException
+	{
+		final ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(1);
+		out.write(1);
+		writeName(out, "Gear");
+		out.write(0);
+		out.write(5);
+		out.write(0);
+		GoalCodec.decodeGroups(Base64.getEncoder().encodeToString(out.toByteArray()), ITEM_FACTORY);
+	}
+
+	private static void writeName(ByteArrayOutputStream out, String name)
+	{
+		final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+		out.write(bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	private static List<PurchaseProgressItem> items(int... itemIds)
+	{
+		final List<PurchaseProgressItem> items = new ArrayList<>();
+		for (int itemId : itemIds)
+		{
+			items.add(ITEM_FACTORY.apply(itemId));
+		}
+		return items;
+	}
+
+	private static List<Integer> ids(List<PurchaseProgressItem> items)
+	{
+		final List<Integer> itemIds = new ArrayList<>();
+		for (PurchaseProgressItem item : items)
+		{
+			itemIds.add(item.getItemId());
+		}
+		return itemIds;
+	}
+}
@@ -0,0 +1,270 @@
+package com.brastasauce.purchaseprogress.data;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GoalJournalTest
+{
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private File file;
+
+	// Compactions run inline, so the file is written by the time compact returns
+	private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1)
+	{
+		@Override
+		public void execute(Runnable command)
+		{
+			command.run();
+		}
+	};
+
+	@Before
+	public void setUp()
+	{
+		file = new File(folder.getRoot(), "goals.journal");
+	}
+
+	@Test
+	public void noJournalReadsAsNull() throws IOException
+	{
+		assertNull(new GoalJournal(file, executor).read());
+	}
+
+	@Test
+	public void replaysItemRecords() throws IOException
+	{
+		final GoalJournal journal = seed(state(500L, Arrays.asList(4151, 11_802)));
+		journal.value(1_000L);
+		journal.itemAdded(GoalJournal.NO_GROUP, 22_325);
+		journal.itemRemoved(GoalJournal.NO_GROUP, 0);
+		journal.groupAdded("Gear");
+		journal.itemMoved(GoalJournal.NO_GROUP, 1, 0, -1);
+		journal.itemAdded(0, 995);
+		journal.itemMoved(0, 1, 0, 0);
+		journal.close();
+
+		final GoalJournal.State state = new GoalJournal(file, executor).read();
+		assertEquals(1_000L, state.value);
+		assertEquals(Arrays.asList(11_802), state.itemIds);
+		assertEquals(Arrays.asList(995, 22_325), state.groups.get(0).getItems());
+	}
+
+	@Test
+	public void nestingFollowsRenamesAndRemoves() throws IOException
+	{
+		final GoalJournal journal = seed(state(0, Arrays.asList(1)));
+		journal.groupAdded("Gear");
+		journal.groupAdded("Melee");
+		journal.groupAdded("Weapons");
+		journal.itemAdded(0, 4151);
+		journal.groupNested(1, 0);
+		journal.groupNested(2, 1);
+		journal.groupUpdated(1, "Close combat", true);
+		journal.close();
+
+		GoalJournal.State state = new GoalJournal(file, executor).read();
+		assertEquals("Gear", state.groups.get(1).getParent());
+		assertEquals("Close combat", state.groups.get(1).getName());
+		assertTrue(state.groups.get(1).isCollapsed());
+		assertEquals("Close combat", state.groups.get(2).getParent());
+
+		// Children of a removed group move up to its parent, its items stay when asked to
+		final GoalJournal reopened = new GoalJournal(file, executor);
+		reopened.groupRemoved(1, false);
+		reopened.groupRemoved(0, true);
+		reopened.close();
+
+		state = new GoalJournal(file, executor).read();
+		assertEquals(1, state.groups.size());
+		assertEquals("Weapons", state.groups.get(0).getName());
+		assertNull(state.groups.get(0).getParent());
+		assertEquals(Arrays.asList(1, 4151), state.itemIds);
+	}
+
+	@Test
+	public void groupMovesAndUnnesting() throws IOException
+	{
+		final GoalJournal journal = seed(state(0, new ArrayList<>()));
+		journal.groupAdded("A");
+		journal.groupAdded("B");
+		journal.groupAdded("C");
+		journal.groupNested(2, 0);
+		journal.groupMoved(2, 0);
+		journal.groupNested(0, GoalJournal.NO_GROUP);
+		journal.close();
+
+		final GoalJournal.State state = new GoalJournal(file, executor).read();
+		assertEquals("C", state.groups.get(0).getName());
+		assertEquals("A", state.groups.get(1).getName());
+		assertEquals("B", state.groups.get(2).getName());
+		assertNull(state.groups.get(0).getParent());
+	}
+
+	@Test
+	public void compactionKeepsNesting() throws IOException
+	{
+		final GoalJournal.State nested = state(7L, Arrays.asList(4151));
+		final PurchaseProgressGroupData parent = new PurchaseProgressGroupData("Gear", false, new ArrayList<>(Arrays.asList(995)));
+		final PurchaseProgressGroupData child = new PurchaseProgressGroupData("Melee", true, new ArrayList<>());
+		child.setParent("Gear");
+		nested.groups.add(child);
+		nested.groups.add(parent);
+
+		seed(nested).close();
+
+		final GoalJournal.State state = new GoalJournal(file, executor).read();
+		assertEquals(7L, state.value);
+		assertEquals(Arrays.asList(4151), state.itemIds);
+		assertEquals("Melee", state.groups.get(0).getName());
+		assertEquals("Gear", state.groups.get(0).getParent());
+		assertNull(state.groups.get(1).getParent());
+		assertEquals(Arrays.asList(995), state.groups.get(1).getItems());
+	}
+
+	@Test
+	public void partialRecordIsTruncatedBeforeTheNextAppend() throws IOException
+	{
+		final GoalJournal journal = seed(state(0, Arrays.asList(4151)));
+		journal.itemAdded(GoalJournal.NO_GROUP, 11_802);
+		journal.close();
+		final long complete = file.length();
+
+		// An item add cut off inside its item id
+		try (FileOutputStream out = new FileOutputStream(file, true))
+		{
+			out.write(new byte[]{2, 0, 0});
+		}
+
+		final GoalJournal reopened = new GoalJournal(file, executor);
+		assertEquals(Arrays.asList(4151, 11_802), reopened.read().itemIds);
+		assertEquals(complete, file.length());
+
+		reopened.itemAdded(GoalJournal.NO_GROUP, 22_325);
+		reopened.close();
+		assertEquals(Arrays.asList(4151, 11_802, 22_325), new GoalJournal(file, executor).read().itemIds);
+	}
+
+	@Test
+	public void longListsKeepTheirPositions() throws IOException
+	{
+		// Past the range of a short, both for the list size and the indexes
+		final List<Integer> itemIds = new ArrayList<>();
+		for (int i = 0; i < 70_000; i++)
+		{
+			itemIds.add(i);
+		}
+
+		final GoalJournal.State seeded = state(0, itemIds);
+		seeded.groups.add(new PurchaseProgressGroupData("Gear", false, new ArrayList<>(itemIds)));
+		final GoalJournal journal = seed(seeded);
+		journal.itemRemoved(GoalJournal.NO_GROUP, 40_000);
+		journal.itemMoved(0, 65_600, GoalJournal.NO_GROUP, 0);
+		journal.close();
+
+		final GoalJournal.State state = new GoalJournal(file, executor).read();
+		assertEquals(70_000, state.itemIds.size());
+		assertEquals(Integer.valueOf(65_600), state.itemIds.get(0));
+		assertEquals(Integer.valueOf(40_001), state.itemIds.get(40_001));
+		assertEquals(69_999, state.groups.get(0).getItems().size());
+		assertEquals(Integer.valueOf(65_601), state.groups.get(0).getItems().get(65_600));
+	}
+
+	@Test(expected = IOException.class)
+	public void negativeIndexIsAnError() throws IOException
+	{
+		seed(state(0, Arrays.asList(4151))).close();
+
+		// An item remove whose group decodes past the int range
+		try (FileOutputStream out = new FileOutputStream(file, true))
+		{
+			out.write(new byte[]{3, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F, 1});
+		}
+		new GoalJournal(file, executor).read();
+	}
+
+	@Test(expected = IOException.class)
+	public void overlongVarintIsAnError() throws IOException
+	{
+		seed(state(0, Arrays.asList(4151))).close();
+		try (FileOutputStream out = new FileOutputStream(file, true))
+		{
+			out.write(new byte[]{3, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0});
+		}
+		new GoalJournal(file, executor).read();
+	}
+
+	@Test
+	public void unreadableJournalIsMovedAside() throws IOException
+	{
+		final GoalJournal journal = seed(state(0, Arrays.asList(4151)));
+		journal.itemRemoved(GoalJournal.NO_GROUP, 5);
+		journal.close();
+
+		final GoalJournal reopened = new GoalJournal(file, executor);
+		try
+		{
+			reopened.read();
+			fail("Bad index read without an error");
+		}
+		catch (IOException e)
+		{
+			final File bad = reopened.quarantine();
+			assertFalse(file.exists());
+			assertTrue(bad.exists());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void unknownRecordIsAnError() throws IOException
+	{
+		seed(state(0, new ArrayList<>())).close();
+		try (FileOutputStream out = new FileOutputStream(file, true))
+		{
+			out.write(99);
+		}
+		new GoalJournal(file, executor).read();
+	}
+
+	@Test(expected = IOException.class)
+	public void badMagicIsAnError() throws IOException
+	{
+		try (FileOutputStream out = new FileOutputStream(file))
+		{
+			out.write(new byte[]{1, 2, 3, 4, 5});
+		}
+		new GoalJournal(file, executor).read();
+	}
+
+	private GoalJournal seed(GoalJournal.State state)
+	{
+		final GoalJournal journal = new GoalJournal(file, executor);
+		journal.compact(state);
+		return journal;
+	}
+
+	private static GoalJournal.State state(long value, List<Integer> itemIds)
+	{
+		final GoalJournal.State state = new GoalJournal.State();
+		state.value = value;
+		state.itemIds = new ArrayList<>(itemIds);
+		return state;
+	}
+}
@@ -0,0 +1,175 @@
+package com.brastasauce.purchaseprogress.data;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// Round trips goals through the old DTO + reflection path, the streaming adapters and the binary codec
+public class GoalSerializationBenchmark
+{
+	private static final int[] SIZES = {1_000, 10_000, 100_000};
+	private static final int GROUP_SIZE = 100;
+	private static final int WARMUP = 20;
+	private static final int RUNS = 20;
+
+	private static final Gson GSON = new Gson();
+	private static final Type GROUPS_TYPE = new TypeToken<ArrayList<PurchaseProgressGroupData>>(){}.getType();
+	private static final IntFunction<PurchaseProgressItem> ITEM_FACTORY = itemId -> new PurchaseProgressItem(null, null, itemId, 0);
+
+	private interface RoundTrip
+	{
+		List<PurchaseProgressGroup> run(List<PurchaseProgressGroup> groups) throws IOException;
+	}
+
+	public static void main(String[] args) throws Exception
+	{
+		final PurchaseProgressItemAdapter itemAdapter = new PurchaseProgressItemAdapter(ITEM_FACTORY);
+		final PurchaseProgressGroupAdapter groupAdapter = new PurchaseProgressGroupAdapter(itemAdapter);
+
+		System.out.printf("%-10s %-10s %12s %14s %10s %18s%n", "items", "path", "ms/op", "KB alloc/op", "chars", "checksum");
+		for (int size : SIZES)
+		{
+			final List<PurchaseProgressGroup> groups = createGroups(size);
+
+			measure(size, "dto", groups, GoalSerializationBenchmark::dtoRoundTrip, toDto(groups).length());
+			measure(size, "stream", groups, g -> streamRoundTrip(groupAdapter, g), toStream(groupAdapter, groups).length());
+			measure(size, "binary", groups, g -> GoalCodec.decodeGroups(GoalCodec.encodeGroups(g), ITEM_FACTORY), GoalCodec.encodeGroups(groups).length());
+		}
+	}
+
+	private static void measure(int size, String name, List<PurchaseProgressGroup> groups, RoundTrip roundTrip, int chars) throws IOException
+	{
+		for (int i = 0; i < WARMUP; i++)
+		{
+			check(groups, roundTrip.run(groups));
+		}
+
+		final com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final long thread = Thread.currentThread().getId();
+		final long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+		final long start = System.nanoTime();
+
+		// Every result is folded into the printed checksum so none of the round trips can be optimized away
+		long checksum = 0;
+		for (int i = 0; i < RUNS; i++)
+		{
+			checksum = checksum * 31 + checksum(roundTrip.run(groups));
+		}
+
+		final double millis = (System.nanoTime() - start) / 1e6 / RUNS;
+		final double kilobytes = (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / 1024.0 / RUNS;
+		System.out.printf("%-10d %-10s %12.2f %14.0f %10d %18x%n", size, name, millis, kilobytes, chars, checksum);
+	}
+
+	// What saveData and loadData used to do, copy into DTO lists and let Gson reflect over them
+	private static List<PurchaseProgressGroup> dtoRoundTrip(List<PurchaseProgressGroup> groups)
+	{
+		final List<PurchaseProgressGroupData> loaded = GSON.fromJson(toDto(groups), GROUPS_TYPE);
+
+		final List<PurchaseProgressGroup> result = new ArrayList<>();
+		for (PurchaseProgressGroupData group : loaded)
+		{
+			final List<PurchaseProgressItem> items = new ArrayList<>();
+			for (Integer itemId : group.getItems())
+			{
+				items.add(ITEM_FACTORY.apply(itemId));
+			}
+			result.add(new PurchaseProgressGroup(group.getName(), group.isCollapsed(), items));
+		}
+		return result;
+	}
+
+	private static String toDto(List<PurchaseProgressGroup> groups)
+	{
+		final List<PurchaseProgressGroupData> data = new ArrayList<>();
+		for (PurchaseProgressGroup group : groups)
+		{
+			final List<Integer> itemIds = new ArrayList<>();
+			for (PurchaseProgressItem item : group.getItems())
+			{
+				itemIds.add(item.getItemId());
+			}
+			data.add(new PurchaseProgressGroupData(group.getName(), group.isCollapsed(), itemIds));
+		}
+		return GSON.toJson(data);
+	}
+
+	private static List<PurchaseProgressGroup> streamRoundTrip(PurchaseProgressGroupAdapter adapter, List<PurchaseProgressGroup> groups) throws IOException
+	{
+		try (JsonReader in = new JsonReader(new StringReader(toStream(adapter, groups))))
+		{
+			return adapter.readList(in);
+		}
+	}
+
+	private static String toStream(PurchaseProgressGroupAdapter adapter, List<PurchaseProgressGroup> groups) throws IOException
+	{
+		final StringWriter json = new StringWriter();
+		try (JsonWriter out = new JsonWriter(json))
+		{
+			adapter.writeList(out, groups);
+		}
+		return json.toString();
+	}
+
+	private static List<PurchaseProgressGroup> createGroups(int size)
+	{
+		final List<PurchaseProgressGroup> groups = new ArrayList<>();
+		for (int start = 0; start < size; start += GROUP_SIZE)
+		{
+			final List<PurchaseProgressItem> items = new ArrayList<>();
+			for (int i = start; i < Math.min(size, start + GROUP_SIZE); i++)
+			{
+				// Goal lists are mostly related gear, so ids cluster
+				items.add(ITEM_FACTORY.apply(20_000 + i * 7 % 5_000));
+			}
+			groups.add(new PurchaseProgressGroup("Group " + start / GROUP_SIZE, start % 2 == 0, items));
+		}
+		return groups;
+	}
+
+	private static void check(List<PurchaseProgressGroup> expected, List<PurchaseProgressGroup> actual)
+	{
+		if (expected.size() != actual.size())
+		{
+			throw new IllegalStateException("Round trip changed the number of groups");
+		}
+
+		for (int i = 0; i < expected.size(); i++)
+		{
+			final PurchaseProgressGroup expectedGroup = expected.get(i);
+			final PurchaseProgressGroup actualGroup = actual.get(i);
+			if (!expectedGroup.getName().equals(actualGroup.getName())
+				|| expectedGroup.isCollapsed() != actualGroup.isCollapsed()
+				|| !expectedGroup.getItems().equals(actualGroup.getItems()))
+			{
+				throw new IllegalStateException("Round trip changed group " + expectedGroup.getName());
+			}
+		}
+	}
+
+	private static long checksum(List<PurchaseProgressGroup> groups)
+	{
+		long checksum = groups.size();
+		for (PurchaseProgressGroup group : groups)
+		{
+			checksum = checksum * 31 + group.getName().hashCode();
+			checksum = checksum * 31 + (group.isCollapsed() ? 1 : 0);
+			for (PurchaseProgressItem item : group.getItems())
+			{
+				checksum = checksum * 31 + item.getItemId();
+			}
+		}
+		return checksum;
+	}
+}
@@ -0,0 +1,108 @@
+package com.brastasauce.purchaseprogress.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class GoalSnapshotTest
+{
+	@Test
+	public void laterChangesDoNotReachThePublishedSnapshot()
+	{
+		final PurchaseProgressItem whip = new PurchaseProgressItem(null, null, 4151, 1_500_000);
+		final PurchaseProgressGroup gear = new PurchaseProgressGroup("Gear", new ArrayList<>(Arrays.asList(new PurchaseProgressItem(null, null, 11_802, 100))));
+		PurchaseProgressGroup.recalculateTotals(Arrays.asList(gear));
+
+		final GoalSnapshot snapshot = GoalSnapshot.of(new ArrayList<>(Arrays.asList(whip)), Arrays.asList(gear));
+
+		whip.setGePrice(1_400_000);
+		whip.setName("Abyssal whip");
+		gear.setName("Melee");
+		gear.adjustTotals(50, 0);
+
+		assertEquals(1_500_000, snapshot.getItems().get(0).getGePrice());
+		assertNull(snapshot.getItems().get(0).getName());
+		assertEquals("Gear", snapshot.getGroups().get(0).getName());
+		assertEquals(100, snapshot.getGroups().get(0).getTotalCost());
+	}
+
+	@Test
+	public void unchangedItemsShareTheirCopy()
+	{
+		final PurchaseProgressItem whip = new PurchaseProgressItem(null, null, 4151, 1_500_000);
+		final List<PurchaseProgressItem> items = new ArrayList<>(Arrays.asList(whip));
+
+		final GoalSnapshot first = GoalSnapshot.of(items, new ArrayList<>());
+		assertSame(first.getItems().get(0), GoalSnapshot.of(items, new ArrayList<>()).getItems().get(0));
+
+		whip.setGePrice(1_400_000);
+		final GoalSnapshot changed = GoalSnapshot.of(items, new ArrayList<>());
+		assertNotSame(first.getItems().get(0), changed.getItems().get(0));
+		assertEquals(1_400_000, changed.getItems().get(0).getGePrice());
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotItemsCannotBeChanged()
+	{
+		final GoalSnapshot snapshot = GoalSnapshot.of(Arrays.asList(new PurchaseProgressItem(null, null, 4151, 0)), new ArrayList<>());
+		snapshot.getItems().get(0).setGePrice(1);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotGroupsCannotBeRenamed()
+	{
+		snapshot("Gear").getGroups().get(0).setName("Melee");
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotGroupTotalsCannotBeChanged()
+	{
+		snapshot("Gear").getGroups().get(0).adjustTotals(1, 1);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void snapshotGroupsCannotBeNested()
+	{
+		final GoalSnapshot snapshot = snapshot("Gear", "Melee");
+		snapshot.getGroups().get(1).setParent(snapshot.getGroups().get(0));
+	}
+
+	@Test
+	public void copiesAreEditableAndKeepTheNesting()
+	{
+		final PurchaseProgressGroup gear = new PurchaseProgressGroup("Gear", new ArrayList<>());
+		final PurchaseProgressGroup melee = new PurchaseProgressGroup("Melee", new ArrayList<>(Arrays.asList(new PurchaseProgressItem(null, null, 4151, 10))));
+		PurchaseProgressGroup.recalculateTotals(Arrays.asList(gear, melee));
+		melee.setParent(gear);
+
+		final GoalSnapshot snapshot = GoalSnapshot.of(Arrays.asList(new PurchaseProgressItem(null, null, 11_802, 5)), Arrays.asList(gear, melee));
+		final List<PurchaseProgressItem> items = snapshot.copyItems();
+		final List<PurchaseProgressGroup> groups = snapshot.copyGroups();
+
+		items.get(0).setGePrice(6);
+		groups.get(1).getItems().get(0).setGePrice(20);
+		groups.get(1).adjustTotals(10, 0);
+
+		assertSame(groups.get(0), groups.get(1).getParent());
+		assertEquals(20, groups.get(0).getTotalCost());
+		assertEquals(10, snapshot.getGroups().get(0).getTotalCost());
+		assertEquals(5, snapshot.getItems().get(0).getGePrice());
+	}
+
+	private static GoalSnapshot snapshot(String... names)
+	{
+		final List<PurchaseProgressGroup> groups = new ArrayList<>();
+		for (String name : names)
+		{
+			groups.add(new PurchaseProgressGroup(name, new ArrayList<>()));
+		}
+		return GoalSnapshot.of(new ArrayList<>(), groups);
+	}
+}
@@ -0,0 +1,112 @@
+package com.brastasauce.purchaseprogress.data;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class PurchaseProgressGroupTest
+{
+	@Test
+	public void nestedTotalsFollowEveryEdit()
+	{
+		final PurchaseProgressGroup a = group("A", 10);
+		final PurchaseProgressGroup b = group("B", 20);
+		final PurchaseProgressGroup c = group("C", 40, 1);
+		final List<PurchaseProgressGroup> groups = new ArrayList<>(Arrays.asList(a, b, c));
+		PurchaseProgressGroup.recalculateTotals(groups);
+
+		// Nest B in A, then C in B
+		b.setParent(a);
+		c.setParent(b);
+		assertTotals(a, 71, 4);
+		assertTotals(b, 61, 3);
+		assertMatchesItems(groups);
+
+		// Move C up to A
+		c.setParent(a);
+		assertTotals(a, 71, 4);
+		assertTotals(b, 20, 1);
+		assertMatchesItems(groups);
+
+		// A price change in C reaches every group above it
+		final PurchaseProgressItem item = c.getItems().get(0);
+		final int oldPrice = item.getGePrice();
+		item.setGePrice(45);
+		c.adjustTotals(45 - oldPrice, 0);
+		assertTotals(c, 46, 2);
+		assertTotals(a, 76, 4);
+		assertMatchesItems(groups);
+
+		// Deleting A moves its children to the top level, the way the plugin removes a group
+		for (PurchaseProgressGroup child : groups)
+		{
+			if (child.getParent() == a)
+			{
+				child.setParent(a.getParent());
+			}
+		}
+		a.setParent(null);
+		groups.remove(a);
+		assertTotals(b, 20, 1);
+		assertTotals(c, 46, 2);
+		assertMatchesItems(groups);
+	}
+
+	@Test
+	public void deletingAMiddleGroupKeepsTheGrandparentTotals()
+	{
+		final PurchaseProgressGroup a = group("A", 10);
+		final PurchaseProgressGroup b = group("B", 20);
+		final PurchaseProgressGroup c = group("C", 40);
+		final List<PurchaseProgressGroup> groups = new ArrayList<>(Arrays.asList(a, b, c));
+		PurchaseProgressGroup.recalculateTotals(groups);
+		b.setParent(a);
+		c.setParent(b);
+
+		// C moves up to A, then B and its own items leave A
+		c.setParent(b.getParent());
+		b.setParent(null);
+		groups.remove(b);
+		assertTotals(a, 50, 2);
+		assertEquals(a, c.getParent());
+		assertMatchesItems(groups);
+	}
+
+	private static PurchaseProgressGroup group(String name, int... prices)
+	{
+		final List<PurchaseProgressItem> items = new ArrayList<>();
+		for (int i = 0; i < prices.length; i++)
+		{
+			items.add(new PurchaseProgressItem(null, null, name.charAt(0) * 100 + i, prices[i]));
+		}
+		return new PurchaseProgressGroup(name, items);
+	}
+
+	private static void assertTotals(PurchaseProgressGroup group, long totalCost, int itemCount)
+	{
+		assertEquals(totalCost, group.getTotalCost());
+		assertEquals(itemCount, group.getItemCount());
+	}
+
+	// The running totals must match a full rebuild from the items
+	private static void assertMatchesItems(List<PurchaseProgressGroup> groups)
+	{
+		final long[] costs = new long[groups.size()];
+		final int[] counts = new int[groups.size()];
+		for (int i = 0; i < groups.size(); i++)
+		{
+			costs[i] = groups.get(i).getTotalCost();
+			counts[i] = groups.get(i).getItemCount();
+		}
+
+		PurchaseProgressGroup.recalculateTotals(groups);
+		for (int i = 0; i < groups.size(); i++)
+		{
+			assertTotals(groups.get(i), costs[i], counts[i]);
+		}
+	}
+}
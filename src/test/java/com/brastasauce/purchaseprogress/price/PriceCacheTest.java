@@ -0,0 +1,85 @@
+package com.brastasauce.purchaseprogress.price;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PriceCacheTest
+{
+	private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+	@Test
+	public void freshPricesAreNotExpired()
+	{
+		final PriceCache cache = new PriceCache(HOUR);
+		assertTrue(cache.isExpired(4151));
+		assertEquals(0, cache.getPrice(4151));
+
+		assertTrue(cache.put(4151, 1_500_000));
+		assertFalse(cache.isExpired(4151));
+		assertEquals(1_500_000, cache.getPrice(4151));
+
+		// Only a different price counts as a change
+		assertFalse(cache.put(4151, 1_500_000));
+		assertTrue(cache.put(4151, 1_400_000));
+		assertEquals(1_400_000, cache.getPrice(4151));
+	}
+
+	@Test
+	public void expiredPricesAreStillServed()
+	{
+		final PriceCache cache = new PriceCache(0);
+		cache.put(4151, 1_500_000);
+
+		assertTrue(cache.isExpired(4151));
+		assertEquals(1_500_000, cache.getPrice(4151));
+	}
+
+	@Test
+	public void evictKeepsReferencedAndFreshEntries()
+	{
+		final PriceCache expired = new PriceCache(0);
+		expired.put(1, 10);
+		expired.put(2, 20);
+		expired.evict(itemId -> itemId == 2);
+		assertEquals(1, expired.size());
+		assertEquals(0, expired.getPrice(1));
+		assertEquals(20, expired.getPrice(2));
+
+		final PriceCache fresh = new PriceCache(HOUR);
+		fresh.put(1, 10);
+		fresh.put(2, 20);
+		fresh.evict(itemId -> false);
+		assertEquals(2, fresh.size());
+	}
+
+	@Test
+	public void evictBoundsTheSizeWithoutDroppingReferences()
+	{
+		final PriceCache cache = new PriceCache(HOUR);
+		for (int itemId = 1; itemId <= 9000; itemId++)
+		{
+			cache.put(itemId, itemId);
+		}
+
+		cache.evict(itemId -> itemId > 8900);
+		assertEquals(8192, cache.size());
+		for (int itemId = 8901; itemId <= 9000; itemId++)
+		{
+			assertEquals(itemId, cache.getPrice(itemId));
+		}
+
+		// Freed entries are reused without mixing up prices
+		for (int itemId = 20_001; itemId <= 20_500; itemId++)
+		{
+			cache.put(itemId, itemId * 2);
+		}
+		assertEquals(8692, cache.size());
+		assertEquals(40_002, cache.getPrice(20_001));
+		assertEquals(9000, cache.getPrice(9000));
+	}
+}
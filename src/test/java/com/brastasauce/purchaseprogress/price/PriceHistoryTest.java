@@ -0,0 +1,113 @@
+package com.brastasauce.purchaseprogress.price;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PriceHistoryTest
+{
+	@Test
+	public void lowestPriceIsKeptPerItem()
+	{
+		final PriceHistory history = new PriceHistory();
+		history.record(4151, 1_500_000);
+		history.record(4151, 1_400_000);
+		history.record(4151, 1_600_000);
+		history.record(11802, 20_000_000);
+
+		assertEquals(1_400_000, history.getLowestPrice(4151));
+		assertEquals(20_000_000, history.getLowestPrice(11802));
+		assertEquals(0, history.getLowestPrice(1));
+		assertTrue(history.isDirty());
+	}
+
+	@Test
+	public void longGoalListsAllGetHistory()
+	{
+		final PriceHistory history = new PriceHistory();
+		for (int itemId = 1; itemId <= 300; itemId++)
+		{
+			history.record(itemId, itemId * 10);
+		}
+
+		assertEquals(300, history.size());
+		assertEquals(3_000, history.getLowestPrice(300));
+	}
+
+	@Test
+	public void fullHistoryMakesRoomForNewItems()
+	{
+		final PriceHistory history = new PriceHistory();
+		for (int itemId = 1; itemId <= 2_000; itemId++)
+		{
+			history.record(itemId, itemId * 10);
+		}
+
+		// Bounded, but the newest items are never turned away
+		assertTrue(history.size() < 2_000);
+		assertEquals(20_000, history.getLowestPrice(2_000));
+		assertEquals(19_990, history.getLowestPrice(1_999));
+	}
+
+	@Test
+	public void retainDropsItemsThatAreNoLongerGoals()
+	{
+		final PriceHistory history = new PriceHistory();
+		history.record(1, 10);
+		history.record(2, 20);
+		history.record(3, 30);
+
+		history.retain(itemId -> itemId != 2);
+		assertEquals(2, history.size());
+		assertEquals(0, history.getLowestPrice(2));
+		assertEquals(10, history.getLowestPrice(1));
+		assertEquals(30, history.getLowestPrice(3));
+	}
+
+	@Test
+	public void roundTrip() throws IOException
+	{
+		final PriceHistory history = new PriceHistory();
+		history.record(4151, 1_500_000);
+		history.record(4151, 1_400_000);
+		history.record(11802, 20_000_000);
+
+		final PriceHistory read = copy(history);
+		assertFalse(history.isDirty());
+		assertFalse(read.isDirty());
+		assertEquals(2, read.size());
+		assertEquals(1_400_000, read.getLowestPrice(4151));
+		assertEquals(20_000_000, read.getLowestPrice(11802));
+	}
+
+	@Test
+	public void unknownVersionIsIgnored() throws IOException
+	{
+		final PriceHistory history = new PriceHistory();
+		history.record(4151, 1_500_000);
+
+		history.read(new DataInputStream(new ByteArrayInputStream(new byte[]{2, 0, 0})));
+		assertEquals(1_500_000, history.getLowestPrice(4151));
+	}
+
+	private static PriceHistory copy(PriceHistory history) throws IOException
+	{
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bytes))
+		{
+			history.write(out);
+		}
+
+		final PriceHistory read = new PriceHistory();
+		read.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+		return read;
+	}
+}
@@ -0,0 +1,95 @@
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
+import com.brastasauce.purchaseprogress.price.PriceRefreshScheduler.Tier;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PriceRefreshSchedulerTest
+{
+	private GameState gameState = GameState.LOGGED_IN;
+
+	// Only the game state is asked of the client
+	private final Client client = (Client) Proxy.newProxyInstance(Client.class.getClassLoader(), new Class<?>[]{Client.class},
+		(proxy, method, args) -> method.getName().equals("getGameState") ? gameState : null);
+
+	// Hot items are due on every check, the other tiers wait an hour
+	private final PurchaseProgressConfig config = new PurchaseProgressConfig()
+	{
+		@Override
+		public int hotRefreshMinutes()
+		{
+			return 0;
+		}
+
+		@Override
+		public int normalRefreshMinutes()
+		{
+			return 60;
+		}
+
+		@Override
+		public int coldRefreshMinutes()
+		{
+			return 60;
+		}
+	};
+
+	@Test
+	public void tierFollowsVisibilityAndProgress()
+	{
+		final PriceRefreshScheduler scheduler = new PriceRefreshScheduler(client, config);
+		assertEquals(Tier.COLD, scheduler.getTier(4151, 1_000, false, 950));
+
+		scheduler.setPanelVisible(true);
+		assertEquals(Tier.HOT, scheduler.getTier(4151, 1_000, false, 950));
+		assertEquals(Tier.NORMAL, scheduler.getTier(4151, 1_000, false, 500));
+		assertEquals(Tier.COLD, scheduler.getTier(4151, 1_000, true, 950));
+
+		gameState = GameState.LOGIN_SCREEN;
+		assertEquals(Tier.COLD, scheduler.getTier(4151, 1_000, false, 950));
+	}
+
+	@Test
+	public void movingPricesAreHotUntilTheySettle()
+	{
+		final PriceRefreshScheduler scheduler = new PriceRefreshScheduler(client, config);
+		scheduler.setPanelVisible(true);
+
+		scheduler.refreshed(4151, 1_000, 1_100);
+		assertEquals(Tier.HOT, scheduler.getTier(4151, 1_100, false, 0));
+
+		scheduler.refreshed(4151, 1_100, 1_101);
+		assertEquals(Tier.NORMAL, scheduler.getTier(4151, 1_101, false, 0));
+	}
+
+	@Test
+	public void refreshIsDueAfterTheTierPeriod()
+	{
+		final PriceRefreshScheduler scheduler = new PriceRefreshScheduler(client, config);
+		assertTrue(scheduler.isDue(4151, Tier.NORMAL));
+
+		scheduler.refreshed(4151, 0, 1_000);
+		assertFalse(scheduler.isDue(4151, Tier.NORMAL));
+		assertFalse(scheduler.isDue(4151, Tier.COLD));
+		assertTrue(scheduler.isDue(4151, Tier.HOT));
+
+		// Other items keep their own schedule
+		assertTrue(scheduler.isDue(11802, Tier.NORMAL));
+	}
+
+	@Test
+	public void containersAreRepricedOncePerPeriod()
+	{
+		final PriceRefreshScheduler scheduler = new PriceRefreshScheduler(client, config);
+		assertTrue(scheduler.isContainerRepriceDue());
+		assertFalse(scheduler.isContainerRepriceDue());
+	}
+}
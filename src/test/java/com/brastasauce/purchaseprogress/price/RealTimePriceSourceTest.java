@@ -0,0 +1,136 @@
+package com.brastasauce.purchaseprogress.price;
+
+import com.brastasauce.purchaseprogress.PurchaseProgressConfig;
+import org.junit.Test;
+
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+// Points the source at file: fixtures, the local stand-in for the latest endpoint
+public class RealTimePriceSourceTest
+{
+	private static final int[] ITEM_IDS = {2, 4};
+
+	// Reads are queued here and run by the test, so a fetch can be held in flight
+	private final List<Runnable> tasks = new ArrayList<>();
+	private final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1)
+	{
+		@Override
+		public void execute(Runnable command)
+		{
+			tasks.add(command);
+		}
+	};
+
+	private final List<PriceSource> loaded = new ArrayList<>();
+
+	@Test
+	public void pricesAreTheMidpointOrWhicheverSideTraded() throws URISyntaxException
+	{
+		final RealTimePriceSource source = source("latest.json");
+		final List<int[]> refreshed = new ArrayList<>();
+		source.refresh(ITEM_IDS, refreshed::add);
+		runTasks();
+
+		assertEquals(1, refreshed.size());
+		assertArrayEquals(ITEM_IDS, refreshed.get(0));
+		assertEquals(1, loaded.size());
+
+		assertEquals(150, source.getPrice(2));
+		assertEquals(50, source.getPrice(4));
+		assertEquals(30, source.getPrice(6));
+		assertEquals(0, source.getPrice(8));
+	}
+
+	@Test
+	public void malformedResponseCompletesWithoutPrices() throws URISyntaxException
+	{
+		final RealTimePriceSource source = source("malformed.json");
+		final List<int[]> refreshed = new ArrayList<>();
+		source.refresh(ITEM_IDS, refreshed::add);
+		runTasks();
+
+		// Callers still hear back, nothing is reported as loaded
+		assertEquals(1, refreshed.size());
+		assertTrue(loaded.isEmpty());
+		assertEquals(0, source.getPrice(2));
+	}
+
+	@Test
+	public void missingFileCompletesWithoutPrices() throws URISyntaxException
+	{
+		final RealTimePriceSource source = source("latest.json", "missing.json");
+		final List<int[]> refreshed = new ArrayList<>();
+		source.refresh(ITEM_IDS, refreshed::add);
+		runTasks();
+
+		assertEquals(1, refreshed.size());
+		assertTrue(loaded.isEmpty());
+	}
+
+	@Test
+	public void refreshesJoinTheFetchInFlight() throws URISyntaxException
+	{
+		final RealTimePriceSource source = source("latest.json");
+		final List<int[]> first = new ArrayList<>();
+		final List<int[]> second = new ArrayList<>();
+
+		source.refresh(ITEM_IDS, first::add);
+		source.refresh(new int[]{6}, second::add);
+		assertEquals(0, source.getPrice(2));
+		assertEquals(1, tasks.size());
+
+		runTasks();
+		assertEquals(1, first.size());
+		assertEquals(1, second.size());
+		assertArrayEquals(new int[]{6}, second.get(0));
+		assertEquals(1, loaded.size());
+	}
+
+	@Test
+	public void refreshWithinTheTtlDoesNotFetchAgain() throws URISyntaxException
+	{
+		final RealTimePriceSource source = source("latest.json");
+		source.refresh(ITEM_IDS, itemIds -> {});
+		runTasks();
+
+		final List<int[]> refreshed = new ArrayList<>();
+		source.refresh(ITEM_IDS, refreshed::add);
+		assertEquals(1, refreshed.size());
+		assertTrue(tasks.isEmpty());
+	}
+
+	private RealTimePriceSource source(String fixture) throws URISyntaxException
+	{
+		return source(fixture, fixture);
+	}
+
+	// The url is built next to an existing fixture so a missing one can be asked for too
+	private RealTimePriceSource source(String existing, String fixture) throws URISyntaxException
+	{
+		final String url = getClass().getResource(existing).toURI().resolve(fixture).toString();
+		final PurchaseProgressConfig config = new PurchaseProgressConfig()
+		{
+			@Override
+			public String realTimePriceUrl()
+			{
+				return url;
+			}
+		};
+		return new RealTimePriceSource(null, executor, config, loaded::add);
+	}
+
+	private void runTasks()
+	{
+		while (!tasks.isEmpty())
+		{
+			tasks.remove(0).run();
+		}
+	}
+}
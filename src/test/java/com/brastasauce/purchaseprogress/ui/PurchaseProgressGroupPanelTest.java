@@ -0,0 +1,96 @@
+package com.brastasauce.purchaseprogress.ui;
+
+import com.brastasauce.purchaseprogress.data.PurchaseProgressGroup;
+import com.brastasauce.purchaseprogress.data.PurchaseProgressItem;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PurchaseProgressGroupPanelTest
+{
+	@Test
+	public void priceChangesReuseTheRows()
+	{
+		final PurchaseProgressGroup shown = group("Gear", 4151, 11_802);
+		final PurchaseProgressGroup current = group("Gear", 4151, 11_802);
+		current.getItems().get(0).setGePrice(1_400_000);
+		PurchaseProgressGroup.recalculateTotals(Arrays.asList(current));
+
+		assertTrue(PurchaseProgressGroupPanel.sameLayout(shown, false, true, current));
+	}
+
+	@Test
+	public void changedItemsRebuildTheRows()
+	{
+		final PurchaseProgressGroup shown = group("Gear", 4151, 11_802);
+
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(shown, false, true, group("Gear", 11_802, 4151)));
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(shown, false, true, group("Gear", 4151, 11_802, 22_325)));
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(shown, false, true, group("Gear", 4151)));
+	}
+
+	@Test
+	public void collapsingRebuildsTheRows()
+	{
+		final PurchaseProgressGroup shown = group("Gear", 4151);
+		final PurchaseProgressGroup current = group("Gear", 4151);
+		current.setCollapsed(true);
+
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(shown, false, true, current));
+		assertTrue(PurchaseProgressGroupPanel.sameLayout(current, true, false, current));
+	}
+
+	@Test
+	public void nestingRebuildsTheRows()
+	{
+		final PurchaseProgressGroup shown = group("Melee", 4151);
+		final PurchaseProgressGroup current = group("Melee", 4151);
+		final PurchaseProgressGroup gear = group("Gear");
+		current.setParent(gear);
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(shown, false, true, current));
+
+		// Same depth under a different parent still moves the group
+		final PurchaseProgressGroup moved = group("Melee", 4151);
+		moved.setParent(group("Armour"));
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(current, false, true, moved));
+	}
+
+	@Test
+	public void totalRowAppearingRebuildsTheRows()
+	{
+		final PurchaseProgressGroup free = group("Gear", 4151);
+		free.getItems().get(0).setGePrice(0);
+		PurchaseProgressGroup.recalculateTotals(Arrays.asList(free));
+		final PurchaseProgressGroup priced = group("Gear", 4151);
+
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(free, false, false, priced));
+		assertFalse(PurchaseProgressGroupPanel.sameLayout(priced, false, true, free));
+
+		// A collapsed group shows no total row either way
+		assertTrue(PurchaseProgressGroupPanel.sameLayout(free, true, false, collapsed(priced)));
+	}
+
+	private static PurchaseProgressGroup collapsed(PurchaseProgressGroup group)
+	{
+		group.setCollapsed(true);
+		return group;
+	}
+
+	private static PurchaseProgressGroup group(String name, int... itemIds)
+	{
+		final List<PurchaseProgressItem> items = new ArrayList<>();
+		for (int itemId : itemIds)
+		{
+			items.add(new PurchaseProgressItem(null, null, itemId, 1_000));
+		}
+
+		final PurchaseProgressGroup group = new PurchaseProgressGroup(name, items);
+		PurchaseProgressGroup.recalculateTotals(Arrays.asList(group));
+		return group;
+	}
+}